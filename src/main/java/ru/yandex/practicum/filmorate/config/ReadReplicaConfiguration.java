@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits the connection pool into a primary and a read replica when
+ * {@code filmorate.datasource.replica.url} is set; without it the single auto-configured
+ * DataSource is used as before. See {@link ReadWriteRoutingDataSource} for the routing rules.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("filmorate.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public DataSource replicaDataSource(@Value("${filmorate.datasource.replica.url}") String url,
+                                       @Value("${filmorate.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                       @Value("${filmorate.datasource.replica.password:${spring.datasource.password:}}") String password,
+                                       @Value("${filmorate.datasource.replica.pool-size:20}") int poolSize) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setMaximumPoolSize(poolSize);
+        replica.setReadOnly(true);
+        replica.setPoolName("replica");
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        log.info("ReadReplicaConfiguration: routing read-only work to the replica pool");
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+    }
+}
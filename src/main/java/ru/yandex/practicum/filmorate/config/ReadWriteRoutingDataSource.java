@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions and non-transactional reads made while serving a request to the
+ * replica, everything else to the primary. Once a request has opened a read-write transaction,
+ * its later reads stay on the primary so it sees its own writes. Work outside a request (startup
+ * index loading, scheduled jobs, the change log poller) always uses the primary. Must be wrapped
+ * in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so the target is
+ * chosen at the first statement, after the transaction's read-only flag is known. Work handed to
+ * another thread can carry its route along with {@link #currentRoute()} and {@link #withRoute}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final String WROTE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".WROTE";
+    private static final ThreadLocal<String> BOUND_ROUTE = new ThreadLocal<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * The target the current thread's statements go to: the route bound by {@link #withRoute},
+     * if any, otherwise the one the rules above pick.
+     */
+    public static String currentRoute() {
+        String bound = BOUND_ROUTE.get();
+        if (bound != null) {
+            return bound;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (request != null) {
+                request.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            }
+            return PRIMARY;
+        }
+        if (request == null && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return request != null && request.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null
+                ? PRIMARY : REPLICA;
+    }
+
+    /**
+     * Runs the work against the primary, for reads whose result outlives the request, such as
+     * cached rows that a lagging replica could leave stale.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        return withRoute(PRIMARY, work);
+    }
+
+    /**
+     * Sends the current thread's statements to the primary until the returned binding is closed;
+     * the form of {@link #onPrimary} for work that throws checked exceptions.
+     */
+    public static RouteBinding bindPrimary() {
+        return bind(PRIMARY);
+    }
+
+    /**
+     * Runs the work with its statements sent to the given route, as returned by
+     * {@link #currentRoute()} on the thread the work came from.
+     */
+    public static <T> T withRoute(String route, Supplier<T> work) {
+        try (RouteBinding ignored = bind(route)) {
+            return work.get();
+        }
+    }
+
+    private static RouteBinding bind(String route) {
+        String previous = BOUND_ROUTE.get();
+        BOUND_ROUTE.set(route);
+        return () -> {
+            if (previous != null) {
+                BOUND_ROUTE.set(previous);
+            } else {
+                BOUND_ROUTE.remove();
+            }
+        };
+    }
+
+    public interface RouteBinding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
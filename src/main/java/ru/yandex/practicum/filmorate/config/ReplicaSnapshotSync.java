@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replication stand-in for running the primary and the replica as two local H2 databases: copies
+ * every table from the primary into the replica in one replica transaction, so readers there see
+ * either the previous snapshot or the new one. Replica lag is the sync interval plus the copy.
+ * Not meant for production, where the database's own replication takes this role.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("filmorate.datasource.replica.snapshot-sync-ms")
+@DependsOnDatabaseInitialization
+public class ReplicaSnapshotSync {
+
+    /**
+     * Parents before children, so inserts satisfy the foreign keys.
+     */
+    static final List<String> TABLES = List.of("Genres", "MPA", "Users", "Films", "film_genres", "user_friends",
+            "film_likes", "change_log", "change_log_horizon");
+
+    private final JdbcTemplate primary;
+    private final TransactionTemplate primarySnapshot;
+    private final DataSource replica;
+    private final TransactionTemplate replicaTransaction;
+
+    @Autowired
+    public ReplicaSnapshotSync(@Qualifier("primaryDataSource") DataSource primary,
+                               @Value("${filmorate.datasource.replica.url}") String replicaUrl,
+                               @Value("${filmorate.datasource.replica.username:${spring.datasource.username:}}") String username,
+                               @Value("${filmorate.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        this(primary, new DriverManagerDataSource(replicaUrl, username, password));
+    }
+
+    ReplicaSnapshotSync(DataSource primary, DataSource replica) {
+        this.primary = new JdbcTemplate(primary);
+        this.primarySnapshot = new TransactionTemplate(new DataSourceTransactionManager(primary));
+        this.primarySnapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.primarySnapshot.setReadOnly(true);
+        this.replica = replica;
+        this.replicaTransaction = new TransactionTemplate(new DataSourceTransactionManager(replica));
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replica);
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.datasource.replica.snapshot-sync-ms}")
+    public void sync() {
+        List<TableSnapshot> snapshot = primarySnapshot.execute(status -> TABLES.stream().map(this::read).toList());
+        replicaTransaction.executeWithoutResult(status -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+            for (int i = TABLES.size() - 1; i >= 0; i--) {
+                jdbcTemplate.update("DELETE FROM " + TABLES.get(i));
+            }
+            for (TableSnapshot table : snapshot) {
+                if (!table.rows().isEmpty()) {
+                    jdbcTemplate.batchUpdate(table.insertSql(), table.rows());
+                }
+            }
+        });
+        log.debug("ReplicaSnapshotSync: copied {} tables to the replica", TABLES.size());
+    }
+
+    private TableSnapshot read(String table) {
+        List<Object[]> rows = new ArrayList<>();
+        String[] insertSql = new String[1];
+        primary.query("SELECT * FROM " + table, rs -> {
+            ResultSetMetaData metaData = rs.getMetaData();
+            if (insertSql[0] == null) {
+                List<String> names = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    names.add(metaData.getColumnName(i));
+                }
+                insertSql[0] = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(names.size(), "?")) + ")";
+            }
+            Object[] row = new Object[metaData.getColumnCount()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            rows.add(row);
+        });
+        return new TableSnapshot(insertSql[0], rows);
+    }
+
+    private record TableSnapshot(String insertSql, List<Object[]> rows) {
+    }
+}
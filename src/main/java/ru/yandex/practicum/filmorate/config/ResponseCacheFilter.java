@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.ListenerOrder;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the final JSON bytes of hot read endpoints, plain and gzipped, and writes them straight
+ * to the response on a hit. Film entries are evicted by the events published for film updates
+ * and like changes, after {@code FilmPopularityIndex} has applied them, since filtered popular
+ * lists are rendered from it; genres and MPA ratings are read-only. Only JSON bodies are stored,
+ * at most {@code max-entries} of them, dropping the least recently used. The version check and the store
+ * happen under the same lock as eviction, so a response rendered while its film changed is never
+ * stored over the eviction. Misses are rendered on the primary: an eviction runs after the write
+ * commits, and a lagging replica read right after it would be cached until the film next changes.
+ */
+@Slf4j
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern CACHEABLE = Pattern.compile("/genres(/\\d+)?|/mpa(/\\d+)?|/films/popular|/films/\\d+");
+    private static final String POPULAR = "/films/popular";
+
+    private final Map<String, CachedBody> cache;
+    private long filmsVersion;
+
+    public ResponseCacheFilter(@Value("${filmorate.response-cache.max-entries:10000}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Order(ListenerOrder.DERIVED_CACHE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmSaved(FilmSavedEvent event) {
+        evictFilm(event.getFilm().getId());
+    }
+
+    @Order(ListenerOrder.DERIVED_CACHE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        evictFilm(event.getFilmId());
+    }
+
+    @Order(ListenerOrder.DERIVED_CACHE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().stream().map(LikeChangedEvent::getFilmId).distinct().forEach(this::evictFilm);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || !CACHEABLE.matcher(request.getRequestURI()).matches()) {
+            return true;
+        }
+        if (request.getParameter("window") != null) {
+            // Sliding-window lists also change when likes age out, which publishes no event.
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && !accept.contains(MediaType.APPLICATION_JSON_VALUE) && !accept.contains("*/*");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getQueryString() == null ? request.getRequestURI()
+                : request.getRequestURI() + '?' + request.getQueryString();
+        boolean gzip = acceptsGzip(request);
+
+        CachedBody cached;
+        long version;
+        synchronized (cache) {
+            cached = cache.get(key);
+            version = filmsVersion;
+        }
+        if (cached != null) {
+            write(response, cached, gzip);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try (ReadWriteRoutingDataSource.RouteBinding ignored = ReadWriteRoutingDataSource.bindPrimary()) {
+            chain.doFilter(request, wrapper);
+        }
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || wrapper.getContentSize() == 0
+                || !isJson(wrapper.getContentType())) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        byte[] plain = wrapper.getContentAsByteArray();
+        CachedBody body = new CachedBody(wrapper.getContentType(), plain, compress(plain));
+        synchronized (cache) {
+            if (filmsVersion == version) {
+                cache.put(key, body);
+            }
+        }
+        wrapper.resetBuffer();
+        write(response, body, gzip);
+    }
+
+    private void evictFilm(int filmId) {
+        synchronized (cache) {
+            filmsVersion++;
+            cache.remove("/films/" + filmId);
+            cache.keySet().removeIf(key -> key.startsWith(POPULAR));
+        }
+        log.debug("ResponseCacheFilter: evicted film {}", filmId);
+    }
+
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+
+    private static void write(HttpServletResponse response, CachedBody body, boolean gzip) throws IOException {
+        byte[] bytes = gzip ? body.gzipped() : body.plain();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(body.contentType());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private static byte[] compress(byte[] plain) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(plain.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(plain);
+        }
+        return buffer.toByteArray();
+    }
+
+    private record CachedBody(String contentType, byte[] plain, byte[] gzipped) {
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
+import ru.yandex.practicum.filmorate.services.ChangeService;
+
+@RestController
+@RequestMapping("/changes")
+@Slf4j
+public class ChangeController {
+
+    private final ChangeService changeService;
+
+    @Autowired
+    public ChangeController(ChangeService changeService) {
+        this.changeService = changeService;
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public ChangeSet getChanges(@RequestParam(defaultValue = "0") long since,
+                                @RequestParam(defaultValue = "100") int limit) {
+        log.info("GET /changes?since={}&limit={} request received", since, limit);
+        return changeService.getChanges(since, limit);
+    }
+}
@@ -3,12 +3,23 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.Completion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCatalogPage;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikePair;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.services.FilmService;
+import ru.yandex.practicum.filmorate.services.LikeStreamService;
+import ru.yandex.practicum.filmorate.services.MultiGetService;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -17,10 +28,15 @@ import java.util.Optional;
 public class FilmController {
 
     private final FilmService filmService;
+    private final LikeStreamService likeStreamService;
+    private final MultiGetService multiGetService;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, LikeStreamService likeStreamService,
+                          MultiGetService multiGetService) {
         this.filmService = filmService;
+        this.likeStreamService = likeStreamService;
+        this.multiGetService = multiGetService;
     }
 
     @PostMapping
@@ -29,12 +45,29 @@ public class FilmController {
         return filmService.create(film);
     }
 
-    @GetMapping
+    @GetMapping(params = {"!ids", "!genre", "!mpa", "!yearFrom", "!yearTo", "!offset", "!count"})
     @ResponseStatus(HttpStatus.OK)
     public Collection<Film> getFilms() {
         return filmService.getFilms();
     }
 
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public FilmCatalogPage browseFilms(@RequestParam(required = false) List<Integer> genre,
+                                       @RequestParam(required = false) List<Integer> mpa,
+                                       @RequestParam(required = false) Integer yearFrom,
+                                       @RequestParam(required = false) Integer yearTo,
+                                       @RequestParam(defaultValue = "0") int offset,
+                                       @RequestParam(defaultValue = "20") int count) {
+        return filmService.browseFilms(genre, mpa, yearFrom, yearTo, offset, count);
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<Film> getFilmsByIds(@RequestParam List<Integer> ids) {
+        return multiGetService.getFilms(ids);
+    }
+
     @GetMapping("/{filmId}")
     @ResponseStatus(HttpStatus.OK)
     public Optional<Film> getFilmById(@PathVariable int filmId) {
@@ -43,13 +76,49 @@ public class FilmController {
 
     @GetMapping("/popular")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getTopFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getTopFilms(count);
+    public Collection<Film> getTopFilms(@RequestParam(defaultValue = "10") int count,
+                                        @RequestParam(required = false) Integer genreId,
+                                        @RequestParam(required = false) Integer mpaId,
+                                        @RequestParam(required = false) Integer year,
+                                        @RequestParam(required = false) String window) {
+        return filmService.getTopFilms(count, genreId, mpaId, year, window);
+    }
+
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> getTrendingFilms(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilms(count);
+    }
+
+    @GetMapping(value = "/popular/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTopFilms(@RequestParam(defaultValue = "10") int count) {
+        return likeStreamService.subscribeToPopular(count);
+    }
+
+    @GetMapping(value = "/{id}/likes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLikes(@PathVariable int id) {
+        return likeStreamService.subscribeToFilm(id);
+    }
+
+    @GetMapping("/search")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> searchFilms(@RequestParam String q,
+                                        @RequestParam(defaultValue = "10") int count) {
+        return filmService.searchFilms(q, count);
+    }
+
+    @GetMapping("/autocomplete")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Completion> autocompleteFilms(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int count) {
+        return filmService.autocompleteFilms(prefix, count);
     }
 
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    public Film updateFilms(@Valid @RequestBody Film film) {
+    public Film updateFilms(@Valid @RequestBody Film film,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        film.setVersion(IfMatch.expectedVersion(ifMatch, film.getVersion()));
         return filmService.update(film);
     }
 
@@ -59,6 +128,18 @@ public class FilmController {
         return filmService.addLike(id, userId);
     }
 
+    @PutMapping("/likes")
+    @ResponseStatus(HttpStatus.OK)
+    public List<LikeOutcome> addLikes(@RequestBody List<LikePair> pairs) {
+        return filmService.addLikes(pairs);
+    }
+
+    @DeleteMapping("/likes")
+    @ResponseStatus(HttpStatus.OK)
+    public List<LikeOutcome> deleteLikes(@RequestBody List<LikePair> pairs) {
+        return filmService.deleteLikes(pairs);
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
     @ResponseStatus(HttpStatus.OK)
     public Film deleteLikeFilm(@PathVariable int id, @PathVariable int userId) {
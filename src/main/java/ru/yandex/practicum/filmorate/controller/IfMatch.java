@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+/**
+ * Reads the entity version expected by an If-Match header: {@code "3"}, {@code W/"3"} or a bare
+ * {@code 3}. Without the header the version sent in the body, if any, is used; {@code *} means
+ * any version.
+ */
+final class IfMatch {
+
+    private IfMatch() {
+    }
+
+    static Integer expectedVersion(String header, Integer bodyVersion) {
+        if (header == null || header.isBlank()) {
+            return bodyVersion;
+        }
+        String tag = header.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Integer.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid If-Match header: " + header);
+        }
+    }
+}
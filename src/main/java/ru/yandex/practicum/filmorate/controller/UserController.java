@@ -3,22 +3,35 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendshipAck;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.services.FilmService;
+import ru.yandex.practicum.filmorate.services.MultiGetService;
 import ru.yandex.practicum.filmorate.services.UserService;
 
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/users")
 @Slf4j
 public class UserController {
     private final UserService userService;
+    private final FilmService filmService;
+    private final MultiGetService multiGetService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, MultiGetService multiGetService) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.multiGetService = multiGetService;
     }
 
     @PostMapping
@@ -33,33 +46,88 @@ public class UserController {
         return userService.getUsers();
     }
 
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MultiGetResult<User> getUsersByIds(@RequestParam List<Integer> ids) {
+        return multiGetService.getUsers(ids);
+    }
+
+    @GetMapping("/autocomplete")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Completion> autocompleteUsers(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int count) {
+        return userService.autocompleteUsers(prefix, count);
+    }
+
     @GetMapping("/{id}/friends")
     @ResponseStatus(HttpStatus.OK)
     public Collection<User> getUsers(@PathVariable int id) {
         return userService.getFriends(id);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<User> getFriendSuggestions(@PathVariable int id,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/feed")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<FeedEvent> getFeed(@PathVariable int id,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        return userService.getFeed(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> getRecommendations(@PathVariable int id,
+                                               @RequestParam(defaultValue = "10") int count) {
+        return filmService.getRecommendations(id, count);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     @ResponseStatus(HttpStatus.OK)
     public Collection<User> getUsers(@PathVariable int id, @PathVariable int otherId) {
         return userService.getCommonFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/films/common/{otherId}")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> getCommonFilms(@PathVariable int id, @PathVariable int otherId,
+                                           @RequestParam(defaultValue = "100") int count) {
+        return filmService.getCommonFilms(id, otherId, count);
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
-    public User updateUser(@Valid @RequestBody User user) {
+    public User updateUser(@Valid @RequestBody User user,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        user.setVersion(IfMatch.expectedVersion(ifMatch, user.getVersion()));
         return userService.updateUser(user);
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     @ResponseStatus(HttpStatus.OK)
-    public User addFriendsUser(@PathVariable int id, @PathVariable int friendId) {
+    public FriendshipAck addFriendsUser(@PathVariable int id, @PathVariable int friendId) {
+        return userService.addFriend(id, friendId);
+    }
+
+    @PutMapping(value = "/{id}/friends/{friendId}", params = "full=true")
+    @ResponseStatus(HttpStatus.OK)
+    public User addFriendsUserFull(@PathVariable int id, @PathVariable int friendId) {
         return userService.addFriends(id, friendId);
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     @ResponseStatus(HttpStatus.OK)
-    public User deleteFriendsUser(@PathVariable int id, @PathVariable int friendId) {
+    public FriendshipAck deleteFriendsUser(@PathVariable int id, @PathVariable int friendId) {
+        return userService.deleteFriend(id, friendId);
+    }
+
+    @DeleteMapping(value = "/{id}/friends/{friendId}", params = "full=true")
+    @ResponseStatus(HttpStatus.OK)
+    public User deleteFriendsUserFull(@PathVariable int id, @PathVariable int friendId) {
         return userService.deleteFriends(id, friendId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.events;
+
+/**
+ * Marks the events published on the current thread as replays of changes made by other nodes,
+ * so that listeners that persist changes do not log them a second time.
+ */
+public final class ChangeReplay {
+
+    private static final ThreadLocal<Boolean> REPLAYING = ThreadLocal.withInitial(() -> false);
+
+    private ChangeReplay() {
+    }
+
+    public static void run(Runnable replay) {
+        boolean outer = REPLAYING.get();
+        REPLAYING.set(true);
+        try {
+            replay.run();
+        } finally {
+            REPLAYING.set(outer);
+        }
+    }
+
+    public static boolean isActive() {
+        return REPLAYING.get();
+    }
+}
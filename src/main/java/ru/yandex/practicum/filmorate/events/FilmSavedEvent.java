@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.yandex.practicum.filmorate.model.Film;
+
+@AllArgsConstructor
+@Getter
+public class FilmSavedEvent {
+    private final Film film;
+}
@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class FriendshipChangedEvent {
+    private final int userId;
+    private final int friendId;
+    private final boolean added;
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@Getter
+public class LikeChangedEvent {
+    private final int filmId;
+    private final int userId;
+    private final boolean added;
+    /**
+     * The like's liked_at, or null when unknown, as for changes replayed from other nodes.
+     */
+    private final LocalDateTime likedAt;
+
+    public LikeChangedEvent(int filmId, int userId, boolean added) {
+        this(filmId, userId, added, null);
+    }
+}
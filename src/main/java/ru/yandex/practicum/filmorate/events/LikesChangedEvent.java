@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The like changes made by one batch write, published once for the whole batch.
+ */
+@AllArgsConstructor
+@Getter
+public class LikesChangedEvent {
+    private final List<LikeChangedEvent> changes;
+}
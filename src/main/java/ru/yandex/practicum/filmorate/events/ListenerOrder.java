@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.events;
+
+/**
+ * {@code @Order} values for event listeners whose state is derived from another listener's:
+ * an index applies a change before the caches computed from it are invalidated, so a cache
+ * refilled in between can only see the updated index.
+ */
+public final class ListenerOrder {
+
+    public static final int INDEX = 0;
+    public static final int DERIVED_CACHE = 100;
+
+    private ListenerOrder() {
+    }
+}
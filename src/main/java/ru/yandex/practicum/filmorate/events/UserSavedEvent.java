@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.yandex.practicum.filmorate.model.User;
+
+@AllArgsConstructor
+@Getter
+public class UserSavedEvent {
+    private final User user;
+}
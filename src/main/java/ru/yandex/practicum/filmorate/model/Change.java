@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Change {
+    private long seq;
+    private EntityType entityType;
+    private int entityId;
+    private Operation operation;
+    private Integer relatedId;
+    private String nodeId;
+
+    public enum EntityType {
+        FILM,
+        USER,
+        FRIENDS
+    }
+
+    public enum Operation {
+        SAVE,
+        ADD,
+        REMOVE
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeSet {
+    private long since;
+    private long nextSince;
+    private boolean hasMore;
+    private boolean resyncRequired;
+    private List<Film> films;
+    private List<User> users;
+    private Map<Integer, int[]> friends;
+}
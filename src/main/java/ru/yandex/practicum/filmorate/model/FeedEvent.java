@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedEvent {
+    private long eventId;
+    private long timestamp;
+    private int userId;
+    private EventType eventType;
+    private Operation operation;
+    private int entityId;
+
+    public enum EventType {
+        LIKE,
+        FRIEND
+    }
+
+    public enum Operation {
+        ADD,
+        REMOVE
+    }
+}
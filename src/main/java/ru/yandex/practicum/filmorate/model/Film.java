@@ -39,6 +39,8 @@ public class Film {
     @Positive(message = "Film duration must be positive")
     private int duration;
 
+    private Integer version;
+
     @Builder.Default
     private Set<User> likes = new HashSet<>();
 
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmCatalogPage {
+    private List<Film> items;
+    private int total;
+    private int offset;
+    private List<FacetCount> genres;
+    private List<FacetCount> mpa;
+    private List<FacetCount> years;
+}
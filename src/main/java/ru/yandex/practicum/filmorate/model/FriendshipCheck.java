@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class FriendshipCheck {
+    private final boolean userExists;
+    private final boolean friendExists;
+    private final boolean friends;
+}
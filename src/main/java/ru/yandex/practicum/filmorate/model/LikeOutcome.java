@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeOutcome {
+    private int filmId;
+    private int userId;
+    private Status status;
+
+    public enum Status {
+        ADDED,
+        REMOVED,
+        ALREADY_LIKED,
+        NOT_LIKED,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@AllArgsConstructor
+@Getter
+public enum PopularityWindow {
+    HOUR("1h"),
+    DAY("24h"),
+    WEEK("7d");
+
+    private final String param;
+
+    public static Optional<PopularityWindow> fromParam(String param) {
+        return Arrays.stream(values()).filter(window -> window.param.equalsIgnoreCase(param)).findFirst();
+    }
+}
@@ -30,6 +30,8 @@ public class User {
     @Past(message = "Birthday must be in the past")
     private LocalDate birthday;
 
+    private Integer version;
+
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     @JsonIgnore
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.events.ChangeReplay;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
+import ru.yandex.practicum.filmorate.model.Change;
+import ru.yandex.practicum.filmorate.model.Change.Operation;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.ChangeLogStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Keeps the in-process indexes and caches of this node coherent with writes made by other nodes
+ * on the shared database. The change log is tailed every {@code poll-ms}, and rows written by
+ * other nodes are replayed as the same events a local write publishes: like and friendship
+ * deltas as they are, films and users reloaded from the database. Replays therefore reach every
+ * listener, and a reloaded film also corrects any like count that drifted.
+ *
+ * <p>Staleness bounds: a write committed on another node is applied here within one poll
+ * interval plus the poll itself. Sequence numbers are taken before commit, so a row can appear
+ * after rows with higher numbers; the cursor waits for such gaps and gives up on one after
+ * {@code gap-timeout-ms} (a rolled-back insert leaves a permanent gap), so a transaction running
+ * longer than that may be missed until its film or user changes again. Superseded rows are only
+ * compacted away after {@code compaction-grace-ms}; a poller stalled for longer than that may
+ * miss deltas and logs a warning. Replay starts from the rows written since this JVM started, so
+ * writes made while the indexes were loading are replayed too; the replay is idempotent.
+ */
+@Slf4j
+@Service
+public class ChangeLogPoller {
+
+    private final ChangeLogStorage changeLogStorage;
+    private final FilmDbStorage filmDbStorage;
+    private final UserStorage userStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long compactionGraceNanos;
+
+    private final Set<Long> applied = new HashSet<>();
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long cursor = -1;
+    private long lastPollNanos = System.nanoTime();
+
+    @Autowired
+    public ChangeLogPoller(ChangeLogStorage changeLogStorage,
+                           @Qualifier("filmDbStorage") FilmDbStorage filmDbStorage,
+                           @Qualifier("userDbStorage") UserStorage userStorage,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${filmorate.changes.poll-batch-size:1000}") int batchSize,
+                           @Value("${filmorate.changes.gap-timeout-ms:2000}") long gapTimeoutMs,
+                           @Value("${filmorate.changes.compaction-grace-ms:60000}") long compactionGraceMs) {
+        this.changeLogStorage = changeLogStorage;
+        this.filmDbStorage = filmDbStorage;
+        this.userStorage = userStorage;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = Duration.ofMillis(gapTimeoutMs).toNanos();
+        this.compactionGraceNanos = Duration.ofMillis(compactionGraceMs).toNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.changes.poll-ms:100}")
+    public synchronized void poll() {
+        long now = System.nanoTime();
+        if (cursor < 0) {
+            cursor = changeLogStorage.getSeqBefore(
+                    Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime()));
+            log.info("ChangeLogPoller: node {} tails the change log from seq {}", changeLogStorage.getNodeId(), cursor);
+        } else if (now - lastPollNanos > compactionGraceNanos) {
+            log.warn("ChangeLogPoller: no poll for {} ms, changes of other nodes may have been missed",
+                    Duration.ofNanos(now - lastPollNanos).toMillis());
+        }
+        lastPollNanos = now;
+
+        List<Change> remote = new ArrayList<>();
+        long maxSeq = cursor;
+        for (Change change : changeLogStorage.getRecentChanges(cursor, batchSize)) {
+            maxSeq = Math.max(maxSeq, change.getSeq());
+            if (applied.add(change.getSeq()) && !changeLogStorage.getNodeId().equals(change.getNodeId())) {
+                remote.add(change);
+            }
+        }
+        ChangeReplay.run(() -> replay(remote));
+        advance(maxSeq, now);
+    }
+
+    private void replay(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        log.debug("ChangeLogPoller: replaying {} changes of other nodes", changes.size());
+        Set<Integer> filmIds = new LinkedHashSet<>();
+        Set<Integer> userIds = new LinkedHashSet<>();
+        for (Change change : changes) {
+            boolean added = change.getOperation() == Operation.ADD;
+            switch (change.getEntityType()) {
+                case FILM -> {
+                    if (change.getOperation() != Operation.SAVE) {
+                        eventPublisher.publishEvent(new LikeChangedEvent(change.getEntityId(), change.getRelatedId(), added));
+                    }
+                    filmIds.add(change.getEntityId());
+                }
+                case USER -> userIds.add(change.getEntityId());
+                case FRIENDS -> eventPublisher.publishEvent(
+                        new FriendshipChangedEvent(change.getEntityId(), change.getRelatedId(), added));
+            }
+        }
+        filmDbStorage.getFilmsByIds(filmIds).forEach(film -> eventPublisher.publishEvent(new FilmSavedEvent(film)));
+        userStorage.getUsersByIds(userIds).forEach(user -> eventPublisher.publishEvent(new UserSavedEvent(user)));
+    }
+
+    /**
+     * Moves the cursor over every applied row and every gap that stayed open past the timeout.
+     */
+    private void advance(long maxSeq, long now) {
+        for (long seq = cursor + 1; seq <= maxSeq; seq++) {
+            if (!applied.contains(seq)) {
+                gaps.putIfAbsent(seq, now);
+            }
+        }
+        while (cursor < maxSeq) {
+            long next = cursor + 1;
+            if (!applied.remove(next)) {
+                Long openedAt = gaps.get(next);
+                if (openedAt != null && now - openedAt < gapTimeoutNanos) {
+                    break;
+                }
+                log.debug("ChangeLogPoller: gave up waiting for seq {}", next);
+            }
+            gaps.remove(next);
+            cursor = next;
+        }
+    }
+}
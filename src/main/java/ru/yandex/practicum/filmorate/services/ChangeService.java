@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Change;
+import ru.yandex.practicum.filmorate.model.ChangeSet;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.interfaces.ChangeLogStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
+
+import java.time.Duration;
+import java.util.*;
+
+@Slf4j
+@Service
+public class ChangeService {
+
+    private final ChangeLogStorage changeLogStorage;
+    private final FilmDbStorage filmDbStorage;
+    private final UserStorage userStorage;
+    private final FriendshipGraph friendshipGraph;
+    private final int maxLimit;
+    private final Duration retention;
+
+    @Autowired
+    public ChangeService(ChangeLogStorage changeLogStorage,
+                         @Qualifier("filmDbStorage") FilmDbStorage filmDbStorage,
+                         @Qualifier("userDbStorage") UserStorage userStorage,
+                         FriendshipGraph friendshipGraph,
+                         @Value("${filmorate.changes.max-limit:1000}") int maxLimit,
+                         @Value("${filmorate.changes.retention-hours:168}") long retentionHours) {
+        this.changeLogStorage = changeLogStorage;
+        this.filmDbStorage = filmDbStorage;
+        this.userStorage = userStorage;
+        this.friendshipGraph = friendshipGraph;
+        this.maxLimit = maxLimit;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * Returns the current state of every film and user changed after {@code since}, each at
+     * most once. A cursor older than the pruned part of the log, or ahead of the log, gets an
+     * empty set with {@code resyncRequired} and the cursor to continue from after a full reload.
+     * Runs in a read-write transaction to stay on the primary: a lagging replica could let the
+     * cursor pass a change that has not been copied there yet.
+     */
+    @Transactional
+    public ChangeSet getChanges(long since, int limit) {
+        log.info("ChangeService: received request for changes since {}, limit {}", since, limit);
+        if (since < 0) {
+            throw new ValidationException("The change cursor cannot be negative");
+        }
+        if (limit <= 0) {
+            throw new ValidationException("The number of changes must be positive");
+        }
+        long head = changeLogStorage.getHeadSeq();
+        if (since < changeLogStorage.getPrunedSeq() || since > head) {
+            log.info("ChangeService: cursor {} is outside of the change log, full resync required", since);
+            return new ChangeSet(since, head, false, true, List.of(), List.of(), Map.of());
+        }
+
+        int pageSize = Math.min(limit, maxLimit);
+        List<Change> changes = changeLogStorage.getChanges(since, pageSize + 1);
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        List<Integer> filmIds = new ArrayList<>();
+        List<Integer> userIds = new ArrayList<>();
+        Map<Integer, int[]> friends = new LinkedHashMap<>();
+        for (Change change : changes) {
+            switch (change.getEntityType()) {
+                case FILM -> filmIds.add(change.getEntityId());
+                case USER -> userIds.add(change.getEntityId());
+                case FRIENDS -> friends.put(change.getEntityId(), friendshipGraph.getFriendIds(change.getEntityId()));
+            }
+        }
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        log.info("ChangeService: returning {} changes, next cursor {}", changes.size(), nextSince);
+        return new ChangeSet(since, nextSince, hasMore, false,
+                filmDbStorage.getFilmsByIds(filmIds), userStorage.getUsersByIds(userIds), friends);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.changes.maintenance-interval-ms:300000}")
+    public void maintain() {
+        changeLogStorage.compact();
+        changeLogStorage.prune(retention);
+    }
+}
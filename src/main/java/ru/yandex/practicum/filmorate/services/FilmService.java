@@ -8,10 +8,24 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exceptions.ContentNotException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.FacetCount;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCatalogPage;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikePair;
+import ru.yandex.practicum.filmorate.model.PopularityWindow;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmAutocompleteIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmRecommendationIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmWindowIndex;
+import ru.yandex.practicum.filmorate.storage.index.UserLikesCache;
 import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.interfaces.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.interfaces.MPAStorage;
@@ -19,12 +33,16 @@ import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class FilmService {
 
     private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int MAX_LIKE_BATCH = 1000;
+    private static final int MAX_CATALOG_PAGE = 100;
 
 
     private final FilmStorage filmStorage;
@@ -32,19 +50,43 @@ public class FilmService {
     private final FilmDbStorage filmDbStorage;
     private final GenreStorage genreStorage;
     private final MPAStorage mpaStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmAutocompleteIndex autocompleteIndex;
+    private final FilmRecommendationIndex recommendationIndex;
+    private final FilmTrendingIndex trendingIndex;
+    private final FilmWindowIndex windowIndex;
+    private final UserLikesCache userLikesCache;
+    private final FilmFacetIndex facetIndex;
 
     @Autowired
     public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
                        @Qualifier("userDbStorage") UserStorage userStorage,
                        @Qualifier("filmDbStorage") FilmDbStorage filmDbStorage,
                        GenreStorage genreStorage,
-                       MPAStorage mpaStorage
+                       MPAStorage mpaStorage,
+                       FilmPopularityIndex popularityIndex,
+                       FilmSearchIndex searchIndex,
+                       FilmAutocompleteIndex autocompleteIndex,
+                       FilmRecommendationIndex recommendationIndex,
+                       FilmTrendingIndex trendingIndex,
+                       FilmWindowIndex windowIndex,
+                       UserLikesCache userLikesCache,
+                       FilmFacetIndex facetIndex
     ) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.filmDbStorage = filmDbStorage;
         this.genreStorage = genreStorage;
         this.mpaStorage = mpaStorage;
+        this.popularityIndex = popularityIndex;
+        this.searchIndex = searchIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.recommendationIndex = recommendationIndex;
+        this.trendingIndex = trendingIndex;
+        this.windowIndex = windowIndex;
+        this.userLikesCache = userLikesCache;
+        this.facetIndex = facetIndex;
     }
 
     @Transactional
@@ -59,6 +101,7 @@ public class FilmService {
         return fullyCreatedFilm;
     }
 
+    @Transactional(readOnly = true)
     public Collection<Film> getFilms() {
         log.info("FilmService: received request to get all films");
         Collection<Film> films = filmStorage.getFilms();
@@ -66,6 +109,34 @@ public class FilmService {
         return films;
     }
 
+    public FilmCatalogPage browseFilms(List<Integer> genreIds, List<Integer> mpaIds, Integer yearFrom, Integer yearTo,
+                                       int offset, int count) {
+        log.info("FilmService: received request to browse films for genres {}, MPA {}, years {}-{}", genreIds, mpaIds,
+                yearFrom, yearTo);
+        if (count <= 0 || count > MAX_CATALOG_PAGE) {
+            log.error("FilmService: Invalid count {} for browsing films", count);
+            throw new ValidationException("The number of films must be between 1 and " + MAX_CATALOG_PAGE);
+        }
+        if (offset < 0) {
+            log.error("FilmService: Invalid offset {} for browsing films", offset);
+            throw new ValidationException("The offset cannot be negative");
+        }
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            log.error("FilmService: Year range {}-{} is empty", yearFrom, yearTo);
+            throw new ValidationException("yearFrom cannot be after yearTo");
+        }
+        FilmFacetIndex.Selection selection = facetIndex.select(
+                genreIds == null ? Set.of() : new HashSet<>(genreIds),
+                mpaIds == null ? Set.of() : new HashSet<>(mpaIds),
+                yearFrom, yearTo, offset, count);
+        List<Film> films = filmDbStorage.getFilmsByIds(Arrays.stream(selection.filmIds()).boxed().toList());
+        log.info("FilmService: returning {} of {} matching films", films.size(), selection.total());
+        return new FilmCatalogPage(films, selection.total(), offset,
+                toFacetCounts(selection.genreCounts(), facetIndex::getGenreName),
+                toFacetCounts(selection.mpaCounts(), facetIndex::getMpaName),
+                toFacetCounts(selection.yearCounts(), String::valueOf));
+    }
+
     public Optional<Film> getFilmById(int filmId) {
         log.info("FilmService: received request to get film by ID: {}", filmId);
         Optional<Film> filmOptional = filmStorage.getFilmById(filmId);
@@ -83,14 +154,11 @@ public class FilmService {
     public Film update(Film film) {
         log.info("FilmService: received request to update film with ID: {}", film.getId());
         validate(film);
-        findFilmById(film.getId());
 
         Film updatedFilm = filmStorage.updateFilm(film);
 
-        Film fullyUpdatedFilm = findFilmById(updatedFilm.getId());
-
-        log.info("FilmService: Film with ID {} updated successfully", fullyUpdatedFilm.getId());
-        return fullyUpdatedFilm;
+        log.info("FilmService: Film with ID {} updated successfully", updatedFilm.getId());
+        return updatedFilm;
     }
 
     @Transactional
@@ -131,6 +199,79 @@ public class FilmService {
     }
 
 
+    /**
+     * Likes many films at once. Films and users are checked with one query each and the likes
+     * written as one batch; every pair gets its own outcome instead of failing the whole call.
+     */
+    @Transactional
+    public List<LikeOutcome> addLikes(List<LikePair> pairs) {
+        log.info("FilmService: received request to add {} likes", pairs.size());
+        Map<LikePair, LikeOutcome.Status> outcomes = checkLikePairs(pairs);
+        List<LikePair> valid = pairs.stream().distinct().filter(pair -> !outcomes.containsKey(pair)).toList();
+        Set<LikePair> added = new HashSet<>(filmDbStorage.addLikes(valid));
+        List<LikeOutcome> result = toOutcomes(pairs, outcomes, added, LikeOutcome.Status.ADDED,
+                LikeOutcome.Status.ALREADY_LIKED);
+        log.info("FilmService: added {} of {} likes", added.size(), pairs.size());
+        return result;
+    }
+
+    @Transactional
+    public List<LikeOutcome> deleteLikes(List<LikePair> pairs) {
+        log.info("FilmService: received request to delete {} likes", pairs.size());
+        Map<LikePair, LikeOutcome.Status> outcomes = checkLikePairs(pairs);
+        List<LikePair> valid = pairs.stream().distinct().filter(pair -> !outcomes.containsKey(pair)).toList();
+        Set<LikePair> removed = new HashSet<>(filmDbStorage.removeLikes(valid));
+        List<LikeOutcome> result = toOutcomes(pairs, outcomes, removed, LikeOutcome.Status.REMOVED,
+                LikeOutcome.Status.NOT_LIKED);
+        log.info("FilmService: removed {} of {} likes", removed.size(), pairs.size());
+        return result;
+    }
+
+    private Map<LikePair, LikeOutcome.Status> checkLikePairs(List<LikePair> pairs) {
+        if (pairs.isEmpty()) {
+            log.error("FilmService: Empty like batch");
+            throw new ValidationException("At least one like must be given");
+        }
+        if (pairs.size() > MAX_LIKE_BATCH) {
+            log.error("FilmService: Like batch of {} exceeds {}", pairs.size(), MAX_LIKE_BATCH);
+            throw new ValidationException("At most " + MAX_LIKE_BATCH + " likes can be sent at once");
+        }
+        Set<Integer> filmIds = filmDbStorage.getExistingFilmIds(
+                pairs.stream().map(LikePair::getFilmId).collect(Collectors.toSet()));
+        Set<Integer> userIds = userStorage.getUsersByIds(
+                        pairs.stream().map(LikePair::getUserId).collect(Collectors.toSet())).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+
+        Map<LikePair, LikeOutcome.Status> outcomes = new HashMap<>();
+        for (LikePair pair : pairs) {
+            if (!filmIds.contains(pair.getFilmId())) {
+                outcomes.put(pair, LikeOutcome.Status.FILM_NOT_FOUND);
+            } else if (!userIds.contains(pair.getUserId())) {
+                outcomes.put(pair, LikeOutcome.Status.USER_NOT_FOUND);
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Maps each requested pair, in order, to its outcome; a pair repeated within the batch only
+     * counts as changed the first time.
+     */
+    private List<LikeOutcome> toOutcomes(List<LikePair> pairs, Map<LikePair, LikeOutcome.Status> invalid,
+                                         Set<LikePair> changed, LikeOutcome.Status changedStatus,
+                                         LikeOutcome.Status unchangedStatus) {
+        List<LikeOutcome> result = new ArrayList<>(pairs.size());
+        for (LikePair pair : pairs) {
+            LikeOutcome.Status status = invalid.get(pair);
+            if (status == null) {
+                status = changed.remove(pair) ? changedStatus : unchangedStatus;
+            }
+            result.add(new LikeOutcome(pair.getFilmId(), pair.getUserId(), status));
+        }
+        return result;
+    }
+
     public List<Film> getTopFilms(int count) {
         log.info("FilmService: received request to get top {} films", count);
         if (count <= 0) {
@@ -142,6 +283,122 @@ public class FilmService {
         return topFilms;
     }
 
+    public List<Film> getTopFilms(int count, Integer genreId, Integer mpaId, Integer year) {
+        if (genreId == null && mpaId == null && year == null) {
+            return getTopFilms(count);
+        }
+        log.info("FilmService: received request to get top {} films for genre {}, MPA {}, year {}", count, genreId, mpaId, year);
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for getting top films", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        List<Integer> topFilmIds = popularityIndex.getTopFilmIds(count, genreId, mpaId, year);
+        List<Film> topFilms = filmDbStorage.getFilmsByIds(topFilmIds);
+        log.info("FilmService: retrieved {} filtered top films", topFilms.size());
+        return topFilms;
+    }
+
+    public List<Film> getTopFilms(int count, Integer genreId, Integer mpaId, Integer year, String window) {
+        if (window == null) {
+            return getTopFilms(count, genreId, mpaId, year);
+        }
+        log.info("FilmService: received request to get top {} films for the last {}", count, window);
+        PopularityWindow popularityWindow = PopularityWindow.fromParam(window).orElseThrow(() -> {
+            log.error("FilmService: Unknown popularity window {}", window);
+            return new ValidationException("The window must be one of 1h, 24h or 7d");
+        });
+        if (genreId != null || mpaId != null || year != null) {
+            log.error("FilmService: Popularity window {} requested together with filters", window);
+            throw new ValidationException("The window cannot be combined with genreId, mpaId or year");
+        }
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for getting top films", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        List<Film> topFilms = filmDbStorage.getFilmsByIds(windowIndex.getTopFilmIds(popularityWindow, count));
+        log.info("FilmService: retrieved {} top films for the last {}", topFilms.size(), window);
+        return topFilms;
+    }
+
+    public List<Film> getTrendingFilms(int count) {
+        log.info("FilmService: received request to get {} trending films", count);
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for getting trending films", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        List<Film> trendingFilms = filmDbStorage.getFilmsByIds(trendingIndex.getTrendingFilmIds(count));
+        log.info("FilmService: retrieved {} trending films", trendingFilms.size());
+        return trendingFilms;
+    }
+
+    public List<Film> searchFilms(String query, int count) {
+        log.info("FilmService: received request to search films by '{}'", query);
+        if (query == null || query.isBlank()) {
+            log.error("FilmService: Search query is empty");
+            throw new ValidationException("Search query cannot be empty");
+        }
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for film search", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        List<Film> films = filmDbStorage.getFilmsByIds(searchIndex.search(query, count));
+        log.info("FilmService: found {} films for '{}'", films.size(), query);
+        return films;
+    }
+
+    public List<Film> getRecommendations(int userId, int count) {
+        log.info("FilmService: received request to get {} recommendations for user ID: {}", count, userId);
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for recommendations", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        if (!userStorage.existsById(userId)) {
+            log.error("FilmService: User with ID {} not found", userId);
+            throw new NotFoundException("User with ID " + userId + " not found");
+        }
+        int[] filmIds = recommendationIndex.getRecommendedFilmIds(userId, count);
+        List<Film> films = filmDbStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList());
+        log.info("FilmService: returning {} recommendations for user ID {}", films.size(), userId);
+        return films;
+    }
+
+    public List<Film> getCommonFilms(int userId, int otherId, int count) {
+        log.info("FilmService: received request to get films liked by both User {} and User {}", userId, otherId);
+        if (count <= 0) {
+            log.error("FilmService: Invalid count {} for common films", count);
+            throw new ValidationException("The number of films must be positive");
+        }
+        for (int id : new int[]{userId, otherId}) {
+            if (!userStorage.existsById(id)) {
+                log.error("FilmService: User with ID {} not found", id);
+                throw new NotFoundException("User with ID " + id + " not found");
+            }
+        }
+        int[] commonFilmIds = userLikesCache.getCommonLikedFilmIds(userId, otherId);
+        List<Film> films = filmDbStorage.getFilmsByIds(popularityIndex.rankFilmIds(commonFilmIds, count));
+        log.info("FilmService: returning {} of {} films liked by both User {} and User {}", films.size(),
+                commonFilmIds.length, userId, otherId);
+        return films;
+    }
+
+    public List<Completion> autocompleteFilms(String prefix, int count) {
+        log.info("FilmService: received request to autocomplete film titles by '{}'", prefix);
+        if (prefix == null || prefix.isBlank()) {
+            log.error("FilmService: Autocomplete prefix is empty");
+            throw new ValidationException("Prefix cannot be empty");
+        }
+        if (count <= 0 || count > FilmAutocompleteIndex.MAX_COMPLETIONS) {
+            log.error("FilmService: Invalid count {} for film autocomplete", count);
+            throw new ValidationException("The number of completions must be between 1 and " + FilmAutocompleteIndex.MAX_COMPLETIONS);
+        }
+        return autocompleteIndex.complete(prefix, count);
+    }
+
+    private static List<FacetCount> toFacetCounts(Map<Integer, Integer> counts, Function<Integer, String> names) {
+        return counts.entrySet().stream()
+                .map(count -> new FacetCount(count.getKey(), names.apply(count.getKey()), count.getValue()))
+                .toList();
+    }
 
     private void validate(Film film) {
         log.debug("FilmService: Validating film: {}", film);
@@ -0,0 +1,216 @@
+package ru.yandex.practicum.filmorate.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.LikeCount;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events for live like counts. Like changes only mark a film dirty; once per tick
+ * every dirty film with subscribers gets one serialized payload shared by all of them, and the
+ * popular list is re-serialized once per requested size. Each subscriber holds at most one
+ * pending payload, so a slow client only ever receives the latest state.
+ */
+@Slf4j
+@Service
+public class LikeStreamService {
+
+    private static final int MAX_POPULAR_COUNT = 100;
+
+    private final FilmStorage filmStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final ObjectMapper objectMapper;
+    private final Supplier<SseEmitter> emitterFactory;
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Set<Integer> dirtyFilms = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Set<Subscriber>> filmSubscribers = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Subscriber>> popularSubscribers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LikeStreamService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                             FilmPopularityIndex popularityIndex,
+                             ObjectMapper objectMapper,
+                             @Value("${filmorate.streams.timeout-ms:1800000}") long timeoutMs) {
+        this(filmStorage, popularityIndex, objectMapper, () -> new SseEmitter(timeoutMs));
+    }
+
+    LikeStreamService(FilmStorage filmStorage, FilmPopularityIndex popularityIndex, ObjectMapper objectMapper,
+                      Supplier<SseEmitter> emitterFactory) {
+        this.filmStorage = filmStorage;
+        this.popularityIndex = popularityIndex;
+        this.objectMapper = objectMapper;
+        this.emitterFactory = emitterFactory;
+    }
+
+    public SseEmitter subscribeToFilm(int filmId) {
+        log.info("LikeStreamService: received request to stream likes of film ID: {}", filmId);
+        if (filmStorage.getFilmById(filmId).isEmpty()) {
+            log.error("LikeStreamService: Film with ID {} not found", filmId);
+            throw new NotFoundException("Film with ID " + filmId + " not found");
+        }
+        Subscriber subscriber = register(filmSubscribers, filmId);
+        subscriber.offer(filmPayload(filmId));
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToPopular(int count) {
+        log.info("LikeStreamService: received request to stream top {} films", count);
+        if (count <= 0 || count > MAX_POPULAR_COUNT) {
+            log.error("LikeStreamService: Invalid count {} for popular stream", count);
+            throw new ValidationException("The number of films must be between 1 and " + MAX_POPULAR_COUNT);
+        }
+        Subscriber subscriber = register(popularSubscribers, count);
+        subscriber.offer(popularPayload(count));
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        dirtyFilms.add(event.getFilmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(change -> dirtyFilms.add(change.getFilmId()));
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.streams.tick-ms:1000}")
+    public void tick() {
+        if (dirtyFilms.isEmpty()) {
+            return;
+        }
+        List<Integer> changed = new ArrayList<>(dirtyFilms);
+        dirtyFilms.removeAll(changed);
+
+        for (int filmId : changed) {
+            Set<Subscriber> subscribers = filmSubscribers.get(filmId);
+            if (subscribers != null && !subscribers.isEmpty()) {
+                Set<DataWithMediaType> payload = filmPayload(filmId);
+                subscribers.forEach(subscriber -> subscriber.offer(payload));
+            }
+        }
+        popularSubscribers.forEach((count, subscribers) -> {
+            if (!subscribers.isEmpty()) {
+                Set<DataWithMediaType> payload = popularPayload(count);
+                subscribers.forEach(subscriber -> subscriber.offer(payload));
+            }
+        });
+        log.debug("LikeStreamService: published changes of {} films", changed.size());
+    }
+
+    int getStreamedKeyCount() {
+        return filmSubscribers.size() + popularSubscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Adding and removing subscribers go through compute on the key, so the last subscriber to
+     * leave removes the key and a new one never joins a set that is being dropped.
+     */
+    private Subscriber register(Map<Integer, Set<Subscriber>> registry, int key) {
+        Subscriber subscriber = new Subscriber(emitterFactory.get());
+        registry.compute(key, (k, subscribers) -> {
+            Set<Subscriber> result = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        Runnable unregister = () -> registry.computeIfPresent(key, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriber.emitter.onCompletion(unregister);
+        subscriber.emitter.onTimeout(unregister);
+        subscriber.emitter.onError(error -> unregister.run());
+        return subscriber;
+    }
+
+    private Set<DataWithMediaType> filmPayload(int filmId) {
+        return payload("likes", new LikeCount(filmId, popularityIndex.getLikeCount(filmId)));
+    }
+
+    private Set<DataWithMediaType> popularPayload(int count) {
+        List<LikeCount> top = popularityIndex.getTopFilmIds(count, null, null, null).stream()
+                .map(filmId -> new LikeCount(filmId, popularityIndex.getLikeCount(filmId)))
+                .toList();
+        return payload("popular", top);
+    }
+
+    private Set<DataWithMediaType> payload(String name, Object data) {
+        try {
+            String json = objectMapper.writeValueAsString(data);
+            return Collections.unmodifiableSet(SseEmitter.event().name(name).data(json, MediaType.APPLICATION_JSON).build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + name + " event", e);
+        }
+    }
+
+    /**
+     * Single-slot mailbox: a newer payload replaces one that has not been sent yet.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicReference<Set<DataWithMediaType>> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> payload) {
+            pending.set(payload);
+            if (sending.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Set<DataWithMediaType> payload = pending.getAndSet(null);
+                if (payload == null) {
+                    sending.set(false);
+                    if (pending.get() == null || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(payload);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("LikeStreamService: dropping subscriber: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
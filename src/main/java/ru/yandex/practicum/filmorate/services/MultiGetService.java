@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Hydrates a list of films or users with one IN-query each, for clients rendering lists that
+ * would otherwise fetch every entry separately. Results follow the request order with
+ * duplicates dropped; ids that do not exist are returned separately.
+ */
+@Slf4j
+@Service
+public class MultiGetService {
+
+    private final FilmDbStorage filmDbStorage;
+    private final UserStorage userStorage;
+    private final int maxIds;
+
+    @Autowired
+    public MultiGetService(@Qualifier("filmDbStorage") FilmDbStorage filmDbStorage,
+                           @Qualifier("userDbStorage") UserStorage userStorage,
+                           @Value("${filmorate.multi-get.max-ids:100}") int maxIds) {
+        this.filmDbStorage = filmDbStorage;
+        this.userStorage = userStorage;
+        this.maxIds = maxIds;
+    }
+
+    @Transactional(readOnly = true)
+    public MultiGetResult<Film> getFilms(List<Integer> ids) {
+        log.info("MultiGetService: received request to get films {}", ids);
+        return multiGet(ids, filmDbStorage::getFilmsByIds, Film::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public MultiGetResult<User> getUsers(List<Integer> ids) {
+        log.info("MultiGetService: received request to get users {}", ids);
+        return multiGet(ids, userStorage::getUsersByIds, User::getId);
+    }
+
+    private <T> MultiGetResult<T> multiGet(List<Integer> ids, Function<Collection<Integer>, List<T>> loader,
+                                           ToIntFunction<T> idOf) {
+        Set<Integer> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.isEmpty()) {
+            log.error("MultiGetService: No ids requested");
+            throw new ValidationException("At least one id must be given");
+        }
+        if (requested.size() > maxIds) {
+            log.error("MultiGetService: {} ids requested, the maximum is {}", requested.size(), maxIds);
+            throw new ValidationException("At most " + maxIds + " ids can be requested at once");
+        }
+        List<T> items = loader.apply(requested);
+        Set<Integer> missing = new LinkedHashSet<>(requested);
+        items.forEach(item -> missing.remove(idOf.applyAsInt(item)));
+        log.info("MultiGetService: retrieved {} of {} requested entities", items.size(), requested.size());
+        return new MultiGetResult<>(items, new ArrayList<>(missing));
+    }
+}
@@ -5,67 +5,100 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
 import ru.yandex.practicum.filmorate.exceptions.ContentNotException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FriendshipAck;
+import ru.yandex.practicum.filmorate.model.FriendshipCheck;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.FriendFeed;
+import ru.yandex.practicum.filmorate.storage.index.FriendSuggestionCache;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.index.UserAutocompleteIndex;
+import ru.yandex.practicum.filmorate.storage.index.UserUniquenessFilter;
 import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
 import java.time.LocalDate;
-import java.util.Collection;
-import java.util.Set;
+import java.util.*;
 
 @Slf4j
 @Service
 public class UserService {
 
     private final UserStorage userStorage;
+    private final UserAutocompleteIndex autocompleteIndex;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final FriendshipGraph friendshipGraph;
+    private final FriendSuggestionCache friendSuggestions;
+    private final FriendFeed friendFeed;
 
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage) {
+    public UserService(@Qualifier("userDbStorage") UserStorage userStorage,
+                       UserAutocompleteIndex autocompleteIndex,
+                       UserUniquenessFilter uniquenessFilter,
+                       FriendshipGraph friendshipGraph,
+                       FriendSuggestionCache friendSuggestions,
+                       FriendFeed friendFeed) {
         this.userStorage = userStorage;
+        this.autocompleteIndex = autocompleteIndex;
+        this.uniquenessFilter = uniquenessFilter;
+        this.friendshipGraph = friendshipGraph;
+        this.friendSuggestions = friendSuggestions;
+        this.friendFeed = friendFeed;
     }
 
     @Transactional
-    public User addFriends(int userId1, int userId2) {
+    public FriendshipAck addFriend(int userId1, int userId2) {
         log.info("UserService: received request to add friend. User1 ID: {}, User2 ID: {}", userId1, userId2);
-        User user1 = findUserById(userId1);
-        User user2 = findUserById(userId2);
+        FriendshipCheck check = checkFriendship(userId1, userId2);
 
-        if (user1.getFriends().contains(user2)) {
+        if (check.isFriends()) {
             log.warn("UserService: User {} is already friends with User {}", userId1, userId2);
             throw new ValidationException("User " + userId2 + " is already added as a friend");
         }
 
         userStorage.addFriend(userId1, userId2);
-        User updatedUser1 = findUserById(userId1);
         log.info("UserService: User {} and User {} are now friends", userId1, userId2);
-        return updatedUser1;
+        return new FriendshipAck(userId1, userId2, true);
     }
 
     @Transactional
-    public User deleteFriends(int userId1, int userId2) {
+    public User addFriends(int userId1, int userId2) {
+        addFriend(userId1, userId2);
+        return findUserById(userId1);
+    }
+
+    @Transactional
+    public FriendshipAck deleteFriend(int userId1, int userId2) {
         log.info("UserService: received request to delete friend. User1 ID: {}, User2 ID: {}", userId1, userId2);
-        User user1 = findUserById(userId1);
-        User user2 = findUserById(userId2);
+        FriendshipCheck check = checkFriendship(userId1, userId2);
 
-        if (!user1.getFriends().contains(user2)) {
+        if (!check.isFriends()) {
             log.warn("UserService: User {} is not friends with User {}", userId1, userId2);
             throw new ContentNotException("User with ID " + userId2 + " not found in friends list of user with ID " + userId1);
         }
 
         userStorage.removeFriend(userId1, userId2);
-        User updatedUser1 = findUserById(userId1);
         log.info("UserService: User {} and User {} are no longer friends", userId1, userId2);
-        return updatedUser1;
+        return new FriendshipAck(userId1, userId2, false);
+    }
+
+    @Transactional
+    public User deleteFriends(int userId1, int userId2) {
+        deleteFriend(userId1, userId2);
+        return findUserById(userId1);
     }
 
     public Set<User> getCommonFriends(int userId1, int userId2) {
         log.info("UserService: received request to get common friends for User1 ID: {}, User2 ID: {}", userId1, userId2);
-        findUserById(userId1);
-        findUserById(userId2);
+        checkUserExists(userId1);
+        checkUserExists(userId2);
 
-        Set<User> commonFriends = userStorage.getCommonFriends(userId1, userId2);
+        int[] commonFriendIds = friendshipGraph.getCommonFriendIds(userId1, userId2);
+        Set<User> commonFriends = new LinkedHashSet<>(userStorage.getUsersByIds(toList(commonFriendIds)));
         log.info("UserService: found {} common friends for User {} and User {}", commonFriends.size(), userId1, userId2);
         return commonFriends;
     }
@@ -74,6 +107,7 @@ public class UserService {
     public User addUser(User user) {
         log.info("UserService: received request to add user: {}", user.getLogin());
         validateUser(user);
+        checkUnique(user);
         User addedUser = userStorage.addUser(user);
         log.info("UserService: user created with ID: {}", addedUser.getId());
         return addedUser;
@@ -82,8 +116,6 @@ public class UserService {
     @Transactional
     public User updateUser(User user) {
         log.info("UserService: received request to update user with ID: {}", user.getId());
-        findUserById(user.getId());
-
         validateUser(user);
 
         User updatedUser = userStorage.updateUser(user);
@@ -91,6 +123,7 @@ public class UserService {
         return updatedUser;
     }
 
+    @Transactional(readOnly = true)
     public Collection<User> getUsers() {
         log.info("UserService: received request to get all users");
         Collection<User> users = userStorage.getUsers();
@@ -100,13 +133,54 @@ public class UserService {
 
     public Collection<User> getFriends(int id) {
         log.info("UserService: received request to get friends for user ID: {}", id);
-        User user = findUserById(id);
+        checkUserExists(id);
 
-        Collection<User> friends = user.getFriends();
+        Collection<User> friends = userStorage.getUsersByIds(toList(friendshipGraph.getFriendIds(id)));
         log.info("UserService: returning {} friends for user ID {}", friends.size(), id);
         return friends;
     }
 
+    public List<User> getFriendSuggestions(int id, int limit) {
+        log.info("UserService: received request to get {} friend suggestions for user ID: {}", limit, id);
+        if (limit <= 0) {
+            log.error("UserService: Invalid limit {} for friend suggestions", limit);
+            throw new ValidationException("The number of suggestions must be positive");
+        }
+        checkUserExists(id);
+
+        List<User> suggestions = userStorage.getUsersByIds(toList(friendSuggestions.getSuggestedIds(id, limit)));
+        log.info("UserService: returning {} friend suggestions for user ID {}", suggestions.size(), id);
+        return suggestions;
+    }
+
+    public List<FeedEvent> getFeed(int id, int limit) {
+        log.info("UserService: received request to get feed for user ID: {}", id);
+        if (limit <= 0) {
+            log.error("UserService: Invalid limit {} for feed", limit);
+            throw new ValidationException("The number of feed events must be positive");
+        }
+        if (!userStorage.existsById(id)) {
+            log.error("UserService: User with ID {} not found", id);
+            throw new NotFoundException("User with ID " + id + " not found");
+        }
+        List<FeedEvent> feed = friendFeed.getFeed(id, limit);
+        log.info("UserService: returning {} feed events for user ID {}", feed.size(), id);
+        return feed;
+    }
+
+    public List<Completion> autocompleteUsers(String prefix, int count) {
+        log.info("UserService: received request to autocomplete user logins by '{}'", prefix);
+        if (prefix == null || prefix.isBlank()) {
+            log.error("UserService: Autocomplete prefix is empty");
+            throw new ValidationException("Prefix cannot be empty");
+        }
+        if (count <= 0 || count > UserAutocompleteIndex.MAX_COMPLETIONS) {
+            log.error("UserService: Invalid count {} for user autocomplete", count);
+            throw new ValidationException("The number of completions must be between 1 and " + UserAutocompleteIndex.MAX_COMPLETIONS);
+        }
+        return autocompleteIndex.complete(prefix, count);
+    }
+
     private User findUserById(int userId) {
         log.debug("UserService: Looking for user with ID: {}", userId);
         return userStorage.getUserById(userId)
@@ -116,6 +190,41 @@ public class UserService {
                 });
     }
 
+    private FriendshipCheck checkFriendship(int userId1, int userId2) {
+        FriendshipCheck check = userStorage.checkFriendship(userId1, userId2);
+        if (!check.isUserExists()) {
+            log.error("UserService: User with ID {} not found", userId1);
+            throw new NotFoundException("User with ID " + userId1 + " not found");
+        }
+        if (!check.isFriendExists()) {
+            log.error("UserService: User with ID {} not found", userId2);
+            throw new NotFoundException("User with ID " + userId2 + " not found");
+        }
+        return check;
+    }
+
+    private void checkUserExists(int userId) {
+        if (!userStorage.existsById(userId)) {
+            log.error("UserService: User with ID {} not found", userId);
+            throw new NotFoundException("User with ID " + userId + " not found");
+        }
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    private void checkUnique(User user) {
+        if (uniquenessFilter.mightContainLogin(user.getLogin()) && userStorage.existsByLogin(user.getLogin())) {
+            log.warn("UserService: Login {} is already taken", user.getLogin());
+            throw new ConflictException("User with login " + user.getLogin() + " already exists");
+        }
+        if (uniquenessFilter.mightContainEmail(user.getEmail()) && userStorage.existsByEmail(user.getEmail())) {
+            log.warn("UserService: Email {} is already taken", user.getEmail());
+            throw new ConflictException("User with email " + user.getEmail() + " already exists");
+        }
+    }
+
     private void validateUser(User user) {
         log.debug("UserService: Validating user: {}", user.getLogin());
         if (user.getName() == null || user.getName().isBlank()) {
@@ -0,0 +1,227 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.events.ChangeReplay;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
+import ru.yandex.practicum.filmorate.model.Change;
+import ru.yandex.practicum.filmorate.model.Change.EntityType;
+import ru.yandex.practicum.filmorate.model.Change.Operation;
+import ru.yandex.practicum.filmorate.storage.interfaces.ChangeLogStorage;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only log of changed films and users. Rows are written by plain (not transactional)
+ * event listeners, so they run inside the transaction of the write that published the event
+ * and commit or roll back with it. Events published inside a {@link ChangeReplay} are other
+ * nodes' changes and are not logged again. Sequence numbers are handed out at insert time, not
+ * at commit, so a row can appear after rows with higher numbers. The delta feed therefore only
+ * serves rows up to the first missing number, and gives up on a gap once this node has seen it
+ * open for {@code gap-timeout-ms} (a rolled-back insert leaves a permanent gap), like
+ * {@code ChangeLogPoller}. A transaction still running past that timeout can be skipped by a
+ * cursor; its film or user is served again on its next change.
+ */
+@Slf4j
+@Repository
+public class ChangeLogDbStorage implements ChangeLogStorage {
+
+    private static final int SETTLE_BATCH_SIZE = 10000;
+    private static final String INSERT_SQL = "INSERT INTO change_log (entity_type, entity_id, operation, related_id, node_id) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long gapTimeoutNanos;
+    private final long compactionGraceMs;
+    @Getter
+    private final String nodeId;
+
+    private final Map<Long, Long> gaps = new HashMap<>();
+    private long settledSeq = -1;
+
+    public ChangeLogDbStorage(JdbcTemplate jdbcTemplate,
+                              @Value("${filmorate.changes.gap-timeout-ms:2000}") long gapTimeoutMs,
+                              @Value("${filmorate.changes.compaction-grace-ms:60000}") long compactionGraceMs,
+                              @Value("${filmorate.node-id:}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gapTimeoutNanos = Duration.ofMillis(gapTimeoutMs).toNanos();
+        this.compactionGraceMs = compactionGraceMs;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        record(EntityType.FILM, event.getFilm().getId(), Operation.SAVE, null);
+    }
+
+    @EventListener
+    public void onLikeChanged(LikeChangedEvent event) {
+        record(EntityType.FILM, event.getFilmId(), event.isAdded() ? Operation.ADD : Operation.REMOVE, event.getUserId());
+    }
+
+    @EventListener
+    public void onLikesChanged(LikesChangedEvent event) {
+        if (event.getChanges().isEmpty() || !shouldRecord(EntityType.FILM, event.getChanges().get(0).getFilmId())) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, event.getChanges().stream()
+                .map(change -> new Object[]{EntityType.FILM.name(), change.getFilmId(),
+                        (change.isAdded() ? Operation.ADD : Operation.REMOVE).name(), change.getUserId(), nodeId})
+                .toList());
+    }
+
+    @EventListener
+    public void onUserSaved(UserSavedEvent event) {
+        record(EntityType.USER, event.getUser().getId(), Operation.SAVE, null);
+    }
+
+    @EventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        record(EntityType.FRIENDS, event.getUserId(), event.isAdded() ? Operation.ADD : Operation.REMOVE,
+                event.getFriendId());
+    }
+
+    @Override
+    public void record(EntityType entityType, int entityId, Operation operation, Integer relatedId) {
+        if (shouldRecord(entityType, entityId)) {
+            jdbcTemplate.update(INSERT_SQL, entityType.name(), entityId, operation.name(), relatedId, nodeId);
+        }
+    }
+
+    @Override
+    public List<Change> getChanges(long since, int limit) {
+        log.debug("ChangeLogDbStorage: reading up to {} changes after {}", limit, since);
+        String sql = "SELECT entity_type, entity_id, MAX(seq) AS last_seq FROM change_log " +
+                "WHERE seq > ? AND seq <= ? " +
+                "GROUP BY entity_type, entity_id " +
+                "ORDER BY last_seq " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Change(
+                rs.getLong("last_seq"),
+                EntityType.valueOf(rs.getString("entity_type")),
+                rs.getInt("entity_id"),
+                Operation.SAVE, null, null), since, settle(), limit);
+    }
+
+    @Override
+    public List<Change> getRecentChanges(long after, int limit) {
+        String sql = "SELECT seq, entity_type, entity_id, operation, related_id, node_id FROM change_log " +
+                "WHERE seq > ? ORDER BY seq LIMIT ?";
+        return jdbcTemplate.query(sql, this::mapRowToChange, after, limit);
+    }
+
+    @Override
+    public long getSeqBefore(Duration age) {
+        Long seq = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(seq), 0) FROM change_log WHERE changed_at < DATEADD(MILLISECOND, ?, LOCALTIMESTAMP)",
+                Long.class, -age.toMillis());
+        return Math.max(seq != null ? seq : 0, getPrunedSeq());
+    }
+
+    @Override
+    public long getHeadSeq() {
+        return Math.max(settle(), getPrunedSeq());
+    }
+
+    @Override
+    public long getPrunedSeq() {
+        Long pruned = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(pruned_seq), 0) FROM change_log_horizon", Long.class);
+        return pruned != null ? pruned : 0;
+    }
+
+    @Override
+    public int compact() {
+        int removed = jdbcTemplate.update("DELETE FROM change_log c " +
+                "WHERE c.changed_at <= DATEADD(MILLISECOND, ?, LOCALTIMESTAMP) " +
+                "AND EXISTS (SELECT 1 FROM change_log n " +
+                "WHERE n.entity_type = c.entity_type AND n.entity_id = c.entity_id AND n.seq > c.seq)", -compactionGraceMs);
+        log.debug("ChangeLogDbStorage: compaction removed {} superseded changes", removed);
+        return removed;
+    }
+
+    @Override
+    @Transactional
+    public int prune(Duration retention) {
+        Long cutoff = jdbcTemplate.queryForObject(
+                "SELECT MAX(seq) FROM change_log WHERE changed_at <= DATEADD(SECOND, ?, LOCALTIMESTAMP)",
+                Long.class, -retention.toSeconds());
+        if (cutoff == null) {
+            return 0;
+        }
+        int removed = jdbcTemplate.update("DELETE FROM change_log WHERE seq <= ?", cutoff);
+        jdbcTemplate.update("MERGE INTO change_log_horizon KEY (id) VALUES (1, ?)", cutoff);
+        log.info("ChangeLogDbStorage: pruned {} changes up to seq {}", removed, cutoff);
+        return removed;
+    }
+
+    private static boolean shouldRecord(EntityType entityType, int entityId) {
+        if (ChangeReplay.isActive()) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.warn("ChangeLogDbStorage: {} {} changed outside of a transaction, its change is logged separately",
+                    entityType, entityId);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the settled position over every present row and every gap that stayed open past the
+     * timeout, and returns it. Rows above it are not served yet. A fresh node starts from the
+     * rows that were already older than the timeout.
+     */
+    private synchronized long settle() {
+        long now = System.nanoTime();
+        if (settledSeq < 0) {
+            settledSeq = getSeqBefore(Duration.ofNanos(gapTimeoutNanos));
+        }
+        settledSeq = Math.max(settledSeq, getPrunedSeq());
+        gaps.keySet().removeIf(seq -> seq <= settledSeq);
+
+        List<Long> present = jdbcTemplate.queryForList(
+                "SELECT seq FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?", Long.class, settledSeq, SETTLE_BATCH_SIZE);
+        for (long seq : present) {
+            for (long missing = settledSeq + 1; missing < seq; missing++) {
+                long openedAt = gaps.computeIfAbsent(missing, key -> now);
+                if (now - openedAt < gapTimeoutNanos) {
+                    for (long later = missing + 1; later < seq; later++) {
+                        gaps.putIfAbsent(later, now);
+                    }
+                    return settledSeq;
+                }
+                log.debug("ChangeLogDbStorage: gave up waiting for seq {}", missing);
+                gaps.remove(missing);
+                settledSeq = missing;
+            }
+            settledSeq = seq;
+        }
+        return settledSeq;
+    }
+
+    private Change mapRowToChange(ResultSet rs, int rowNum) throws SQLException {
+        int relatedId = rs.getInt("related_id");
+        return new Change(
+                rs.getLong("seq"),
+                EntityType.valueOf(rs.getString("entity_type")),
+                rs.getInt("entity_id"),
+                Operation.valueOf(rs.getString("operation")),
+                rs.wasNull() ? null : relatedId,
+                rs.getString("node_id"));
+    }
+}
@@ -1,22 +1,35 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikePair;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoader;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoaders;
 import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -26,15 +39,37 @@ import java.util.stream.Collectors;
 @Primary
 public class FilmDbStorage implements FilmStorage {
 
+    /**
+     * One row per film, genre and like; {@link #filmsExtractor()} folds them back into films.
+     */
+    private static final String FILM_SELECT =
+            "SELECT f.id AS film_id, f.name AS film_name, f.description, f.releaseDate, f.duration, f.version, " +
+                    "m.id AS mpa_id, m.name AS mpa_name, " +
+                    "g.id AS genre_id, g.name AS genre_name, " +
+                    "fl.like_user_id " +
+                    "FROM Films f " +
+                    "JOIN MPA m ON f.mpa_id = m.id " +
+                    "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
+                    "LEFT JOIN Genres g ON fg.genre_id = g.id " +
+                    "LEFT JOIN film_likes fl ON f.id = fl.film_id ";
+
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final GenreDbStorage genreDbStorage;
     private final MpaDbStorage mpaDbStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchLoader<Film> filmLoader;
 
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate, GenreDbStorage genreDbStorage, MpaDbStorage mpaDbStorage) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, GenreDbStorage genreDbStorage, MpaDbStorage mpaDbStorage,
+                         ApplicationEventPublisher eventPublisher, BatchLoaders batchLoaders) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
         this.genreDbStorage = genreDbStorage;
         this.mpaDbStorage = mpaDbStorage;
+        this.eventPublisher = eventPublisher;
+        this.filmLoader = batchLoaders.create("films", ids -> getFilmsByIds(ids).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film)));
     }
 
     @Override
@@ -73,7 +108,9 @@ public class FilmDbStorage implements FilmStorage {
 
         log.info("FilmDbStorage: Film created with id: {}", film.getId());
 
-        return getFilmById(filmId).orElseThrow(() -> new NotFoundException("Failed to retrieve added film"));
+        Film addedFilm = getFilmById(filmId).orElseThrow(() -> new NotFoundException("Failed to retrieve added film"));
+        eventPublisher.publishEvent(new FilmSavedEvent(addedFilm));
+        return addedFilm;
     }
 
     @Override
@@ -81,21 +118,22 @@ public class FilmDbStorage implements FilmStorage {
         log.debug("Attempting to update film with ID: {}", film.getId());
 
 
-        String checkFilmSql = "SELECT COUNT(*) FROM Films WHERE id = ?";
-        Integer filmCount = jdbcTemplate.queryForObject(checkFilmSql, Integer.class, film.getId());
-        if (filmCount == null || filmCount == 0) {
-            log.error("Film with ID {} not found for update", film.getId());
-            throw new NotFoundException("Film not found");
-        }
-
-        String sql = "UPDATE Films SET name = ?, description = ?, releaseDate = ?, mpa_id = ?, duration = ? WHERE id = ?";
-        jdbcTemplate.update(sql,
+        String sql = "UPDATE Films SET name = ?, description = ?, releaseDate = ?, mpa_id = ?, duration = ?, " +
+                "version = version + 1 WHERE id = ?";
+        List<Object> args = new ArrayList<>(Arrays.asList(
                 film.getName(),
                 film.getDescription(),
                 film.getReleaseDate(),
                 film.getMpa() != null ? film.getMpa().getId() : null,
                 film.getDuration(),
-                film.getId());
+                film.getId()));
+        if (film.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(film.getVersion());
+        }
+        if (jdbcTemplate.update(sql, args.toArray()) == 0) {
+            throw updateRejected(film.getId(), film.getVersion());
+        }
 
         jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", film.getId());
 
@@ -115,175 +153,52 @@ public class FilmDbStorage implements FilmStorage {
 
         log.info("FilmDbStorage: Film updated with id: {}", film.getId());
 
-        return getFilmById(film.getId()).orElseThrow(() -> new NotFoundException("Failed to retrieve updated film"));
+        Film updatedFilm = getFilmById(film.getId()).orElseThrow(() -> new NotFoundException("Failed to retrieve updated film"));
+        eventPublisher.publishEvent(new FilmSavedEvent(updatedFilm));
+        return updatedFilm;
+    }
+
+    private RuntimeException updateRejected(int filmId, Integer expectedVersion) {
+        boolean exists = expectedVersion != null && Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM Films WHERE id = ?)", Boolean.class, filmId));
+        if (exists) {
+            log.warn("Film with ID {} was modified concurrently, expected version {}", filmId, expectedVersion);
+            return new PreconditionFailedException("Film with ID " + filmId + " has been modified, expected version " + expectedVersion);
+        }
+        log.error("Film with ID {} not found for update", filmId);
+        return new NotFoundException("Film not found");
     }
 
     @Override
     public Collection<Film> getFilms() {
         log.debug("Attempting to retrieve all films with genres and likes from database");
-        String sql = "SELECT f.id AS film_id, f.name AS film_name, f.description, f.releaseDate, f.duration, " +
-                "m.id AS mpa_id, m.name AS mpa_name, " +
-                "g.id AS genre_id, g.name AS genre_name, " +
-                "fl.like_user_id " +
-                "FROM Films f " +
-                "JOIN MPA m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                "LEFT JOIN Genres g ON fg.genre_id = g.id " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                "ORDER BY f.id, g.id, fl.like_user_id";
-
-        return jdbcTemplate.query(sql, rs -> {
-            Map<Integer, Film> filmMap = new LinkedHashMap<>();
-
-            while (rs.next()) {
-                Integer filmId = rs.getInt("film_id");
-                Film film = filmMap.computeIfAbsent(filmId, id -> {
-                    Film newFilm = new Film();
-                    try {
-                        newFilm.setId(id);
-                        newFilm.setName(rs.getString("film_name"));
-                        newFilm.setDescription(rs.getString("description"));
-                        Date releaseDateSql = rs.getDate("releaseDate");
-                        newFilm.setReleaseDate(releaseDateSql != null ? releaseDateSql.toLocalDate() : null);
-                        newFilm.setDuration(rs.getInt("duration"));
-
-                        MPA mpa = new MPA();
-                        mpa.setId(rs.getInt("mpa_id"));
-                        mpa.setName(rs.getString("mpa_name"));
-                        newFilm.setMpa(mpa);
-
-                        newFilm.setGenres(new ArrayList<>());
-                        newFilm.setLikes(new HashSet<>());
-                    } catch (SQLException e) {
-                        log.error("Error mapping film data from ResultSet", e);
-                        throw new RuntimeException("Error mapping film data", e);
-                    }
-                    return newFilm;
-                });
-
-                Integer genreId = rs.getInt("genre_id");
-                if (!rs.wasNull()) {
-                    Genre genre = new Genre();
-                    try {
-                        genre.setId(genreId);
-                        genre.setName(rs.getString("genre_name"));
-                    } catch (SQLException e) {
-                        log.error("Error mapping genre data from ResultSet for film ID {}", filmId, e);
-                        throw new RuntimeException("Error mapping genre data", e);
-                    }
-                    if (!film.getGenres().stream().anyMatch(g -> g.getId() == genre.getId())) {
-                        film.getGenres().add(genre);
-                    }
-                }
-
-                Integer likeUserId = rs.getInt("like_user_id");
-                if (!rs.wasNull()) {
-                    User likeUser = new User();
-                    likeUser.setId(likeUserId);
-                    film.getLikes().add(likeUser);
-                }
-            }
-
-            log.debug("Finished processing ResultSet for getFilms. Total films found: {}", filmMap.size());
-
-            filmMap.values().forEach(film -> {
-                if (film.getGenres() != null) {
-                    film.getGenres().sort(Comparator.comparing(Genre::getId));
-                }
-            });
-
-            return filmMap.values();
-        });
+        String sql = FILM_SELECT + "ORDER BY f.id, g.id, fl.like_user_id";
+        Map<Integer, Film> filmMap = jdbcTemplate.query(sql, filmsExtractor());
+        log.debug("Retrieved {} films", filmMap.size());
+        return filmMap.values();
     }
 
+    /**
+     * Outside a transaction, concurrent lookups are merged into one IN-query by the film
+     * {@link BatchLoader}. Inside one the film is read on the transaction's connection, which
+     * sees its own uncommitted writes.
+     */
     @Override
     public Optional<Film> getFilmById(int filmId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return filmLoader.load(filmId);
+        }
         log.debug("Attempting to retrieve film by ID {} with genres and likes from database", filmId);
-        String sql = "SELECT f.id AS film_id, f.name AS film_name, f.description, f.releaseDate, f.duration, " +
-                "m.id AS mpa_id, m.name AS mpa_name, " +
-                "g.id AS genre_id, g.name AS genre_name, " +
-                "fl.like_user_id " +
-                "FROM Films f " +
-                "JOIN MPA m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                "LEFT JOIN Genres g ON fg.genre_id = g.id " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                "WHERE f.id = ? " +
-                "ORDER BY g.id, fl.like_user_id";
-
-        Film film = jdbcTemplate.query(sql, rs -> {
-            Film currentFilm = null;
-            while (rs.next()) {
-                if (currentFilm == null) {
-                    currentFilm = new Film();
-                    try {
-                        currentFilm.setId(rs.getInt("film_id"));
-                        currentFilm.setName(rs.getString("film_name"));
-                        currentFilm.setDescription(rs.getString("description"));
-                        Date releaseDateSql = rs.getDate("releaseDate");
-                        currentFilm.setReleaseDate(releaseDateSql != null ? releaseDateSql.toLocalDate() : null);
-                        currentFilm.setDuration(rs.getInt("duration"));
-
-                        MPA mpa = new MPA();
-                        mpa.setId(rs.getInt("mpa_id"));
-                        mpa.setName(rs.getString("mpa_name"));
-                        currentFilm.setMpa(mpa);
-
-                        currentFilm.setGenres(new ArrayList<>());
-                        currentFilm.setLikes(new HashSet<>());
-                    } catch (SQLException e) {
-                        log.error("Error mapping film data from ResultSet for ID {}", filmId, e);
-                        throw new RuntimeException("Error mapping film data", e);
-                    }
-                }
-
-                Integer genreId = rs.getInt("genre_id");
-                if (!rs.wasNull()) {
-                    Genre genre = new Genre();
-                    try {
-                        genre.setId(genreId);
-                        genre.setName(rs.getString("genre_name"));
-                    } catch (SQLException e) {
-                        log.error("Error mapping genre data from ResultSet for film ID {}", filmId, e);
-                        throw new RuntimeException("Error mapping genre data", e);
-                    }
-                    if (!currentFilm.getGenres().stream().anyMatch(g -> g.getId() == genre.getId())) {
-                        currentFilm.getGenres().add(genre);
-                    }
-                }
-
-                Integer likeUserId = rs.getInt("like_user_id");
-                if (!rs.wasNull()) {
-                    User likeUser = new User();
-                    likeUser.setId(likeUserId);
-                    currentFilm.getLikes().add(likeUser);
-                }
-            }
-
-            if (currentFilm != null && currentFilm.getGenres() != null) {
-                currentFilm.getGenres().sort(Comparator.comparing(Genre::getId));
-            }
-            return currentFilm;
-        }, filmId);
-
-        Optional<Film> resultOptional = Optional.ofNullable(film);
+        String sql = FILM_SELECT + "WHERE f.id = ? ORDER BY g.id, fl.like_user_id";
+        Optional<Film> resultOptional = Optional.ofNullable(jdbcTemplate.query(sql, filmsExtractor(), filmId).get(filmId));
         log.debug("Film with ID {} found: {}", filmId, resultOptional.isPresent());
-
         return resultOptional;
     }
 
     @Override
     public List<Film> getTopFilms(int count) {
         log.debug("Attempting to retrieve top {} films with genres and likes from database", count);
-        String sql = "SELECT f.id AS film_id, f.name AS film_name, f.description, f.releaseDate, f.duration, " +
-                "m.id AS mpa_id, m.name AS mpa_name, " +
-                "g.id AS genre_id, g.name AS genre_name, " +
-                "fl.like_user_id " +
-                "FROM Films f " +
-                "JOIN MPA m ON f.mpa_id = m.id " +
-                "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
-                "LEFT JOIN Genres g ON fg.genre_id = g.id " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
+        String sql = FILM_SELECT +
                 "WHERE f.id IN ( " +
                 "  SELECT f_top.id " +
                 "  FROM Films f_top " +
@@ -297,89 +212,126 @@ public class FilmDbStorage implements FilmStorage {
                 "  FROM film_likes fl_order " +
                 "  WHERE fl_order.film_id = f.id " +
                 ") DESC NULLS LAST, f.id ASC, g.id ASC, fl.like_user_id ASC";
+        List<Film> films = new ArrayList<>(jdbcTemplate.query(sql, filmsExtractor(), count).values());
+        log.debug("Retrieved {} top films", films.size());
+        return films;
+    }
 
-        List<Film> films = jdbcTemplate.query(sql, rs -> {
-            Map<Integer, Film> currentFilmMap = new LinkedHashMap<>();
-
-            while (rs.next()) {
-                Integer filmId = rs.getInt("film_id");
-                Film film = currentFilmMap.computeIfAbsent(filmId, id -> {
-                    Film newFilm = new Film();
-                    try {
-                        newFilm.setId(id);
-                        newFilm.setName(rs.getString("film_name"));
-                        newFilm.setDescription(rs.getString("description"));
-                        Date releaseDateSql = rs.getDate("releaseDate");
-                        newFilm.setReleaseDate(releaseDateSql != null ? releaseDateSql.toLocalDate() : null);
-                        newFilm.setDuration(rs.getInt("duration"));
-
-                        MPA mpa = new MPA();
-                        mpa.setId(rs.getInt("mpa_id"));
-                        mpa.setName(rs.getString("mpa_name"));
-                        newFilm.setMpa(mpa);
-
-                        newFilm.setGenres(new ArrayList<>());
-                        newFilm.setLikes(new HashSet<>());
-
-                    } catch (SQLException e) {
-                        log.error("Error mapping film data from ResultSet for top films", e);
-                        throw new RuntimeException("Error mapping film data", e);
-                    }
-                    return newFilm;
-                });
-
-                Integer genreId = rs.getInt("genre_id");
-                if (!rs.wasNull()) {
-                    Genre genre = new Genre();
-                    try {
-                        genre.setId(genreId);
-                        genre.setName(rs.getString("genre_name"));
-                    } catch (SQLException e) {
-                        log.error("Error mapping genre data from ResultSet for top film ID {}", filmId, e);
-                        throw new RuntimeException("Error mapping genre data", e);
-                    }
-                    if (!film.getGenres().stream().anyMatch(g -> g.getId() == genre.getId())) {
-                        film.getGenres().add(genre);
-                    }
-                }
-
-                Integer likeUserId = rs.getInt("like_user_id");
-                if (!rs.wasNull()) {
-                    User likeUser = new User();
-                    likeUser.setId(likeUserId);
-                    film.getLikes().add(likeUser);
-                }
+    public List<Film> getFilmsByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        log.debug("Attempting to retrieve films by IDs {} with genres and likes from database", ids);
+        String sql = FILM_SELECT + "WHERE f.id IN (:ids) ORDER BY f.id, g.id, fl.like_user_id";
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("ids", ids);
+        Map<Integer, Film> filmMap = namedParameterJdbcTemplate.query(sql, parameters, filmsExtractor());
+
+        List<Film> films = new ArrayList<>(filmMap.size());
+        for (Integer id : ids) {
+            Film film = filmMap.get(id);
+            if (film != null) {
+                films.add(film);
             }
-
-            log.debug("Finished processing ResultSet for getTopFilms. Total films found: {}", currentFilmMap.size());
-
-            currentFilmMap.values().forEach(film -> {
-                if (film.getGenres() != null) {
-                    film.getGenres().sort(Comparator.comparing(Genre::getId));
-                }
-            });
-
-            return new ArrayList<>(currentFilmMap.values());
-        }, count);
-
+        }
+        log.debug("Retrieved {} films for {} requested IDs", films.size(), ids.size());
         return films;
     }
 
-
     public void addLike(int filmId, int userId) {
         log.debug("FilmDbStorage: Attempting to add like for film {} by user {}", filmId, userId);
-        String sql = "INSERT INTO film_likes (film_id, like_user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, filmId, userId);
+        String sql = "INSERT INTO film_likes (film_id, like_user_id, liked_at) VALUES (?, ?, ?)";
+        LocalDateTime likedAt = LocalDateTime.now();
+        jdbcTemplate.update(sql, filmId, userId, likedAt);
+        eventPublisher.publishEvent(new LikeChangedEvent(filmId, userId, true, likedAt));
         log.debug("FilmDbStorage: Like added for film {} by user {}", filmId, userId);
     }
 
     public void removeLike(int filmId, int userId) {
         log.debug("FilmDbStorage: Attempting to remove like for film {} by user {}", filmId, userId);
-        String sql = "DELETE FROM film_likes WHERE film_id = ? AND like_user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
+        String sql = "SELECT liked_at FROM OLD TABLE (DELETE FROM film_likes WHERE film_id = ? AND like_user_id = ?)";
+        List<LocalDateTime> deleted = jdbcTemplate.queryForList(sql, LocalDateTime.class, filmId, userId);
+        if (!deleted.isEmpty()) {
+            eventPublisher.publishEvent(new LikeChangedEvent(filmId, userId, false, deleted.get(0)));
+        }
         log.debug("FilmDbStorage: Like removed for film {} by user {}", filmId, userId);
     }
 
+    /**
+     * Inserts the likes as one JDBC batch, skipping pairs that are already liked, and returns
+     * the pairs that were actually added. The additions are published as one
+     * {@link LikesChangedEvent}.
+     */
+    public List<LikePair> addLikes(List<LikePair> pairs) {
+        if (pairs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        log.debug("FilmDbStorage: Attempting to add {} likes in one batch", pairs.size());
+        String sql = "MERGE INTO film_likes fl " +
+                "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS TIMESTAMP))) " +
+                "AS v(film_id, like_user_id, liked_at) " +
+                "ON fl.film_id = v.film_id AND fl.like_user_id = v.like_user_id " +
+                "WHEN NOT MATCHED THEN INSERT (film_id, like_user_id, liked_at) " +
+                "VALUES (v.film_id, v.like_user_id, v.liked_at)";
+        LocalDateTime likedAt = LocalDateTime.now();
+        int[] counts = jdbcTemplate.batchUpdate(sql, pairs.stream()
+                .map(pair -> new Object[]{pair.getFilmId(), pair.getUserId(), likedAt})
+                .toList());
+
+        List<LikePair> added = new ArrayList<>();
+        List<LikeChangedEvent> changes = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                LikePair pair = pairs.get(i);
+                added.add(pair);
+                changes.add(new LikeChangedEvent(pair.getFilmId(), pair.getUserId(), true, likedAt));
+            }
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new LikesChangedEvent(changes));
+        }
+        log.debug("FilmDbStorage: {} of {} likes added", added.size(), pairs.size());
+        return added;
+    }
+
+    /**
+     * Deletes the likes with one statement and returns the pairs that existed. The removals are
+     * published as one {@link LikesChangedEvent}.
+     */
+    public List<LikePair> removeLikes(List<LikePair> pairs) {
+        if (pairs.isEmpty()) {
+            return new ArrayList<>();
+        }
+        log.debug("FilmDbStorage: Attempting to remove {} likes in one statement", pairs.size());
+        String sql = "SELECT film_id, like_user_id, liked_at FROM OLD TABLE (" +
+                "DELETE FROM film_likes WHERE (film_id, like_user_id) IN (:pairs))";
+        MapSqlParameterSource parameters = new MapSqlParameterSource("pairs", pairs.stream()
+                .map(pair -> new Object[]{pair.getFilmId(), pair.getUserId()})
+                .toList());
+
+        List<LikePair> removed = new ArrayList<>();
+        List<LikeChangedEvent> changes = new ArrayList<>();
+        namedParameterJdbcTemplate.query(sql, parameters, rs -> {
+            LikePair pair = new LikePair(rs.getInt("film_id"), rs.getInt("like_user_id"));
+            removed.add(pair);
+            changes.add(new LikeChangedEvent(pair.getFilmId(), pair.getUserId(), false,
+                    rs.getObject("liked_at", LocalDateTime.class)));
+        });
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new LikesChangedEvent(changes));
+        }
+        log.debug("FilmDbStorage: {} of {} likes removed", removed.size(), pairs.size());
+        return removed;
+    }
+
+    public Set<Integer> getExistingFilmIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList("SELECT id FROM Films WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Integer.class));
+    }
+
     public boolean checkLikeExists(int filmId, int userId) {
         log.debug("FilmDbStorage: Checking if like exists for film {} by user {}", filmId, userId);
         String sql = "SELECT COUNT(*) FROM film_likes WHERE film_id = ? AND like_user_id = ?";
@@ -389,6 +341,44 @@ public class FilmDbStorage implements FilmStorage {
         return exists;
     }
 
+    private ResultSetExtractor<Map<Integer, Film>> filmsExtractor() {
+        return rs -> {
+            Map<Integer, Film> filmMap = new LinkedHashMap<>();
+            while (rs.next()) {
+                int filmId = rs.getInt("film_id");
+                Film film = filmMap.get(filmId);
+                if (film == null) {
+                    film = new Film();
+                    film.setId(filmId);
+                    film.setName(rs.getString("film_name"));
+                    film.setDescription(rs.getString("description"));
+                    Date releaseDateSql = rs.getDate("releaseDate");
+                    film.setReleaseDate(releaseDateSql != null ? releaseDateSql.toLocalDate() : null);
+                    film.setDuration(rs.getInt("duration"));
+                    film.setVersion(rs.getInt("version"));
+                    film.setMpa(new MPA(rs.getInt("mpa_id"), rs.getString("mpa_name")));
+                    film.setGenres(new ArrayList<>());
+                    film.setLikes(new HashSet<>());
+                    filmMap.put(filmId, film);
+                }
+
+                int genreId = rs.getInt("genre_id");
+                if (!rs.wasNull() && film.getGenres().stream().noneMatch(g -> g.getId() == genreId)) {
+                    film.getGenres().add(new Genre(genreId, rs.getString("genre_name")));
+                }
+
+                int likeUserId = rs.getInt("like_user_id");
+                if (!rs.wasNull()) {
+                    User likeUser = new User();
+                    likeUser.setId(likeUserId);
+                    film.getLikes().add(likeUser);
+                }
+            }
+            filmMap.values().forEach(film -> film.getGenres().sort(Comparator.comparing(Genre::getId)));
+            return filmMap;
+        };
+    }
+
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
         user.setId(rs.getInt("id"));
@@ -1,13 +1,23 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.model.FriendshipCheck;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoader;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoaders;
 import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
 import java.sql.Date;
@@ -22,9 +32,15 @@ import java.util.*;
 public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchLoader<User> userLoader;
 
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher, BatchLoaders batchLoaders) {
         this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.eventPublisher = eventPublisher;
+        this.userLoader = batchLoaders.create("users", this::getUsersWithFriendsByIds);
     }
 
     @Override
@@ -41,32 +57,41 @@ public class UserDbStorage implements UserStorage {
             return stmt;
         }, keyHolder);
         user.setId(keyHolder.getKey().intValue());
+        user.setVersion(0);
         log.info("UserDbStorage: User created with id: {}", user.getId());
+        eventPublisher.publishEvent(new UserSavedEvent(user));
         return user;
     }
 
     @Override
     public User updateUser(User user) {
         log.debug("Attempting to update user with ID: {}", user.getId());
-        String sql = "UPDATE Users SET login = ?, email = ?, name = ?, birthday = ? WHERE id = ?";
-        int rowsUpdated = jdbcTemplate.update(sql,
+        String sql = "SELECT version FROM FINAL TABLE (" +
+                "UPDATE Users SET login = ?, email = ?, name = ?, birthday = ?, version = version + 1 WHERE id = ?";
+        List<Object> args = new ArrayList<>(Arrays.asList(
                 user.getLogin(),
                 user.getEmail(),
                 user.getName(),
                 user.getBirthday(),
-                user.getId());
-        if (rowsUpdated == 0) {
-            log.error("User with ID {} not found for update", user.getId());
-            throw new NotFoundException("User not found");
+                user.getId()));
+        if (user.getVersion() != null) {
+            sql += " AND version = ?";
+            args.add(user.getVersion());
         }
+        List<Integer> versions = jdbcTemplate.queryForList(sql + ")", Integer.class, args.toArray());
+        if (versions.isEmpty()) {
+            throw updateRejected(user.getId(), user.getVersion());
+        }
+        user.setVersion(versions.get(0));
         log.info("UserDbStorage: User updated with id: {}", user.getId());
+        eventPublisher.publishEvent(new UserSavedEvent(user));
         return user;
     }
 
     @Override
     public Collection<User> getUsers() {
         log.debug("Attempting to retrieve all users with friends from database");
-        String sql = "SELECT u.id AS user_id, u.login, u.email, u.name, u.birthday, " +
+        String sql = "SELECT u.id AS user_id, u.login, u.email, u.name, u.birthday, u.version, " +
                 "uf.friend_id " +
                 "FROM Users u " +
                 "LEFT JOIN user_friends uf ON u.id = uf.user_id " +
@@ -85,6 +110,7 @@ public class UserDbStorage implements UserStorage {
                     newUser.setName(rs.getString("name"));
                     Date birthdaySql = rs.getDate("birthday");
                     newUser.setBirthday(birthdaySql != null ? birthdaySql.toLocalDate() : null);
+                    newUser.setVersion(rs.getInt("version"));
                     newUser.setFriends(new HashSet<>());
                 } catch (SQLException e) {
                     log.error("Error mapping user data from ResultSet", e);
@@ -106,10 +132,17 @@ public class UserDbStorage implements UserStorage {
         return userMap.values();
     }
 
+    /**
+     * Outside a transaction, concurrent lookups are merged into one IN-query by the user
+     * {@link BatchLoader}; inside one the user is read on the transaction's connection.
+     */
     @Override
     public Optional<User> getUserById(int id) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return userLoader.load(id);
+        }
         log.debug("Attempting to retrieve user by ID {} with friends from database", id);
-        String sql = "SELECT u.id AS user_id, u.login, u.email, u.name, u.birthday, " +
+        String sql = "SELECT u.id AS user_id, u.login, u.email, u.name, u.birthday, u.version, " +
                 "uf.friend_id " +
                 "FROM Users u " +
                 "LEFT JOIN user_friends uf ON u.id = uf.user_id " +
@@ -128,6 +161,7 @@ public class UserDbStorage implements UserStorage {
                         currentUser.setName(rs.getString("name"));
                         Date birthdaySql = rs.getDate("birthday");
                         currentUser.setBirthday(birthdaySql != null ? birthdaySql.toLocalDate() : null);
+                        currentUser.setVersion(rs.getInt("version"));
                         currentUser.setFriends(new HashSet<>());
                     } catch (SQLException e) {
                         log.error("Error mapping user data from ResultSet for ID {}", id, e);
@@ -151,35 +185,101 @@ public class UserDbStorage implements UserStorage {
         return userOptional;
     }
 
+    @Override
+    public List<User> getUsersByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        log.debug("Attempting to retrieve users by IDs {} from database", ids);
+        String sql = "SELECT id, login, email, name, birthday, version FROM Users WHERE id IN (:ids)";
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("ids", ids);
+        Map<Integer, User> userMap = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, parameters, this::mapRowToUser)
+                .forEach(user -> userMap.put(user.getId(), user));
+
+        List<User> users = new ArrayList<>(userMap.size());
+        for (Integer id : ids) {
+            User user = userMap.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        log.debug("Retrieved {} users for {} requested IDs", users.size(), ids.size());
+        return users;
+    }
+
+    private Map<Integer, User> getUsersWithFriendsByIds(Collection<Integer> ids) {
+        log.debug("Attempting to retrieve users by IDs {} with friends from database", ids);
+        String sql = "SELECT u.id, u.login, u.email, u.name, u.birthday, u.version, uf.friend_id " +
+                "FROM Users u " +
+                "LEFT JOIN user_friends uf ON u.id = uf.user_id " +
+                "WHERE u.id IN (:ids)";
+        Map<Integer, User> userMap = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("ids", ids), rs -> {
+            User user = userMap.get(rs.getInt("id"));
+            if (user == null) {
+                user = mapRowToUser(rs, rs.getRow());
+                user.setFriends(new HashSet<>());
+                userMap.put(user.getId(), user);
+            }
+            int friendId = rs.getInt("friend_id");
+            if (!rs.wasNull()) {
+                User friend = new User();
+                friend.setId(friendId);
+                user.getFriends().add(friend);
+            }
+        });
+        return userMap;
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM Users WHERE id = ?)", Boolean.class, id);
+        return Boolean.TRUE.equals(exists);
+    }
+
     public void addFriend(int userId, int friendId) {
         log.debug("Attempting to add friend relation: user {} -> friend {}", userId, friendId);
         String sql = "INSERT INTO user_friends (user_id, friend_id, status) VALUES (?, ?, ?)";
         jdbcTemplate.update(sql, userId, friendId, "CONFIRMED");
+        eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, true));
         log.debug("Friend relation added: user {} -> friend {}", userId, friendId);
     }
 
     @Override
     public void removeFriend(int userId1, int userId2) {
         log.debug("Attempting to remove friend relation between {} and {}", userId1, userId2);
-        String sql1 = "DELETE FROM user_friends WHERE user_id = ? AND friend_id = ?";
-        int rowsDeleted1 = jdbcTemplate.update(sql1, userId1, userId2);
+        String sql = "SELECT user_id, friend_id FROM OLD TABLE (" +
+                "DELETE FROM user_friends WHERE (user_id = ? AND friend_id = ?) OR (user_id = ? AND friend_id = ?))";
+        List<int[]> deleted = jdbcTemplate.query(sql,
+                (rs, rowNum) -> new int[]{rs.getInt("user_id"), rs.getInt("friend_id")},
+                userId1, userId2, userId2, userId1);
 
-        String sql2 = "DELETE FROM user_friends WHERE user_id = ? AND friend_id = ?";
-        int rowsDeleted2 = jdbcTemplate.update(sql2, userId2, userId1);
+        deleted.forEach(row -> eventPublisher.publishEvent(new FriendshipChangedEvent(row[0], row[1], false)));
 
-        int totalRowsDeleted = rowsDeleted1 + rowsDeleted2;
-
-        if (totalRowsDeleted == 0) {
+        if (deleted.isEmpty()) {
             log.warn("No friend relations found for removal between {} and {}", userId1, userId2);
         } else {
-            log.debug("Friend relations removed between {} and {}. Total rows deleted: {}", userId1, userId2, totalRowsDeleted);
+            log.debug("Friend relations removed between {} and {}. Total rows deleted: {}", userId1, userId2, deleted.size());
         }
     }
 
+    @Override
+    public FriendshipCheck checkFriendship(int userId, int friendId) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM Users WHERE id = ?) AS user_exists, " +
+                "EXISTS (SELECT 1 FROM Users WHERE id = ?) AS friend_exists, " +
+                "EXISTS (SELECT 1 FROM user_friends WHERE user_id = ? AND friend_id = ?) AS friends";
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new FriendshipCheck(
+                rs.getBoolean("user_exists"),
+                rs.getBoolean("friend_exists"),
+                rs.getBoolean("friends")), userId, friendId, userId, friendId);
+    }
+
     @Override
     public Set<User> getCommonFriends(int userId1, int userId2) {
         log.debug("Attempting to retrieve common friends for users {} and {}", userId1, userId2);
-        String sql = "SELECT u.id, u.login, u.email, u.name, u.birthday " +
+        String sql = "SELECT u.id, u.login, u.email, u.name, u.birthday, u.version " +
                 "FROM Users u " +
                 "WHERE u.id IN (" +
                 "    SELECT uf1.friend_id " +
@@ -197,6 +297,29 @@ public class UserDbStorage implements UserStorage {
         return commonFriends;
     }
 
+    @Override
+    public boolean existsByLogin(String login) {
+        log.debug("Checking if login {} is taken", login);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM Users WHERE login = ?)", Boolean.class, login);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        log.debug("Checking if email {} is taken", email);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM Users WHERE email = ?)", Boolean.class, email);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private RuntimeException updateRejected(int userId, Integer expectedVersion) {
+        if (expectedVersion != null && existsById(userId)) {
+            log.warn("User with ID {} was modified concurrently, expected version {}", userId, expectedVersion);
+            return new PreconditionFailedException("User with ID " + userId + " has been modified, expected version " + expectedVersion);
+        }
+        log.error("User with ID {} not found for update", userId);
+        return new NotFoundException("User not found");
+    }
+
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
         user.setId(rs.getInt("id"));
@@ -205,6 +328,7 @@ public class UserDbStorage implements UserStorage {
         user.setName(rs.getString("name"));
         Date birthdaySql = rs.getDate("birthday");
         user.setBirthday(birthdaySql != null ? birthdaySql.toLocalDate() : null);
+        user.setVersion(rs.getInt("version"));
         return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package ru.yandex.practicum.filmorate.storage.batch;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.config.ReadWriteRoutingDataSource;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Merges concurrent lookups by id into one batch query. A lookup made while no batch of this
+ * loader is running is run at once on the caller's thread; lookups arriving while one runs are
+ * collected and run together as soon as nothing is running any more, when the window ends, or at
+ * once on the caller's thread when the batch reaches the maximum size. Callers asking for an id
+ * that is already pending share its result. A failed batch fails every caller in it.
+ *
+ * <p>Batches are kept apart by the caller's {@link ReadWriteRoutingDataSource#currentRoute() route}
+ * and run with it, so a request that has written never gets its rows from a lagging replica.
+ * Lookups inside a read-write transaction are not batched, since they have to see that
+ * transaction's own writes.
+ */
+public class BatchLoader<V> {
+
+    private static final int HISTOGRAM_BUCKETS = 12;
+
+    private final String name;
+    private final Function<Collection<Integer>, Map<Integer, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxSize;
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+
+    private final Lock lock = new ReentrantLock();
+    private final Map<String, Batch<V>> pending = new HashMap<>();
+    private int running;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong keys = new AtomicLong();
+    private final AtomicLongArray sizes = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+    BatchLoader(String name, Function<Collection<Integer>, Map<Integer, V>> batchFunction, long windowNanos,
+                int maxSize, ScheduledExecutorService timer, Executor executor) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.windowNanos = windowNanos;
+        this.maxSize = maxSize;
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Optional<V> load(int id) {
+        if (windowNanos <= 0 || maxSize <= 1 || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return Optional.ofNullable(run(List.of(id)).get(id));
+        }
+        String route = ReadWriteRoutingDataSource.currentRoute();
+        CompletableFuture<V> result = null;
+        Batch<V> full = null;
+        lock.lock();
+        try {
+            if (running == 0) {
+                running++;
+            } else {
+                Batch<V> batch = pending.get(route);
+                if (batch == null) {
+                    Batch<V> created = new Batch<>(route);
+                    pending.put(route, created);
+                    timer.schedule(() -> flush(created), windowNanos, TimeUnit.NANOSECONDS);
+                    batch = created;
+                }
+                result = batch.futures.get(id);
+                if (result == null) {
+                    result = new CompletableFuture<>();
+                    batch.futures.put(id, result);
+                    if (batch.futures.size() >= maxSize) {
+                        pending.remove(route);
+                        running++;
+                        full = batch;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (result == null) {
+            try {
+                return Optional.ofNullable(run(List.of(id)).get(id));
+            } finally {
+                finished();
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        try {
+            return Optional.ofNullable(result.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    int pendingCount() {
+        lock.lock();
+        try {
+            return pending.values().stream().mapToInt(batch -> batch.futures.size()).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Number of batches per size range, in powers of two: "1", "2-3", "4-7" and so on.
+     */
+    public Map<String, Long> getBatchSizeHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            long count = sizes.get(i);
+            if (count > 0) {
+                int from = 1 << i;
+                int to = (from << 1) - 1;
+                String range = i == HISTOGRAM_BUCKETS - 1 ? from + "+" : from == to ? String.valueOf(from) : from + "-" + to;
+                histogram.put(range, count);
+            }
+        }
+        return histogram;
+    }
+
+    public double getAverageBatchSize() {
+        long batchCount = batches.get();
+        return batchCount == 0 ? 0 : (double) keys.get() / batchCount;
+    }
+
+    private void flush(Batch<V> batch) {
+        lock.lock();
+        try {
+            if (!pending.remove(batch.route, batch)) {
+                return;
+            }
+            running++;
+        } finally {
+            lock.unlock();
+        }
+        executor.execute(() -> dispatch(batch));
+    }
+
+    /**
+     * Called when a batch ends; once nothing runs any more, the collected batches go at once
+     * instead of waiting for their window.
+     */
+    private void finished() {
+        List<Batch<V>> ready;
+        lock.lock();
+        try {
+            running--;
+            if (running > 0 || pending.isEmpty()) {
+                return;
+            }
+            ready = new ArrayList<>(pending.values());
+            pending.clear();
+            running += ready.size();
+        } finally {
+            lock.unlock();
+        }
+        ready.forEach(batch -> executor.execute(() -> dispatch(batch)));
+    }
+
+    private void dispatch(Batch<V> batch) {
+        try {
+            Map<Integer, V> loaded = ReadWriteRoutingDataSource.withRoute(batch.route, () -> run(batch.futures.keySet()));
+            batch.futures.forEach((id, future) -> future.complete(loaded.get(id)));
+        } catch (RuntimeException e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            finished();
+        }
+    }
+
+    private Map<Integer, V> run(Collection<Integer> ids) {
+        batches.incrementAndGet();
+        keys.addAndGet(ids.size());
+        sizes.incrementAndGet(Math.min(31 - Integer.numberOfLeadingZeros(ids.size()), HISTOGRAM_BUCKETS - 1));
+        return batchFunction.apply(ids);
+    }
+
+    private static final class Batch<V> {
+        private final String route;
+        private final Map<Integer, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+        private Batch(String route) {
+            this.route = route;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.batch;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Creates the {@link BatchLoader}s of the storages with the configured window and maximum batch
+ * size, owns the timer and the threads that run batches, and logs each loader's batch size
+ * distribution. A window of 0 turns batching off: every lookup is its own one-id batch.
+ */
+@Slf4j
+@Component
+public class BatchLoaders {
+
+    private final long windowNanos;
+    private final int maxSize;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "batch-loader-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<BatchLoader<?>> loaders = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> reportedBatches = new ConcurrentHashMap<>();
+
+    public BatchLoaders(@Value("${filmorate.batching.window-micros:1000}") long windowMicros,
+                        @Value("${filmorate.batching.max-size:100}") int maxSize) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxSize = maxSize;
+    }
+
+    public <V> BatchLoader<V> create(String name, Function<Collection<Integer>, Map<Integer, V>> batchFunction) {
+        BatchLoader<V> loader = new BatchLoader<>(name, batchFunction, windowNanos, maxSize, timer, executor);
+        loaders.add(loader);
+        return loader;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.batching.stats-log-ms:60000}")
+    public void logStats() {
+        for (BatchLoader<?> loader : loaders) {
+            long batchCount = loader.getBatchCount();
+            Long previous = reportedBatches.put(loader.getName(), batchCount);
+            if (previous == null || previous != batchCount) {
+                log.info("BatchLoaders: {} ran {} batches, {} ids per batch on average, sizes {}", loader.getName(),
+                        batchCount, String.format("%.1f", loader.getAverageBatchSize()), loader.getBatchSizeHistogram());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        executor.shutdown();
+    }
+}
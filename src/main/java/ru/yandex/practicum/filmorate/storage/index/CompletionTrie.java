@@ -0,0 +1,211 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.*;
+
+/**
+ * Prefix trie where every node caches the ids of its best weighted completions. Writes refresh
+ * the cached lists bottom-up along the changed key only, so lookups never scan a subtree.
+ * Removing a key prunes the branch it leaves empty. Not thread-safe; callers guard access.
+ */
+class CompletionTrie {
+
+    private static final int[] NO_IDS = new int[0];
+
+    private final int maxCompletions;
+    private final Node root = new Node();
+    private final Map<Integer, String> keys = new HashMap<>();
+    private final Map<Integer, Integer> weights = new HashMap<>();
+    private final Comparator<Integer> ranking = Comparator.<Integer>comparingInt(id -> weights.get(id)).reversed()
+            .thenComparingInt(id -> id);
+
+    CompletionTrie(int maxCompletions) {
+        this.maxCompletions = maxCompletions;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    void clear() {
+        root.children = new Node[0];
+        root.labels = new char[0];
+        root.ids = NO_IDS;
+        root.top = NO_IDS;
+        keys.clear();
+        weights.clear();
+    }
+
+    void put(int id, String text, int weight) {
+        String key = normalize(text);
+        String previousKey = keys.get(id);
+        if (previousKey != null && !previousKey.equals(key)) {
+            remove(id);
+        }
+        refresh(insert(id, key, weight));
+    }
+
+    void load(Map<Integer, String> texts, Map<Integer, Integer> initialWeights) {
+        clear();
+        texts.forEach((id, text) -> insert(id, normalize(text), initialWeights.getOrDefault(id, 0)));
+        refreshSubtree(root);
+    }
+
+    void setWeight(int id, int weight) {
+        String key = keys.get(id);
+        if (key == null) {
+            return;
+        }
+        weights.put(id, weight);
+        refresh(path(key, false));
+    }
+
+    int getWeight(int id) {
+        return weights.getOrDefault(id, 0);
+    }
+
+    void remove(int id) {
+        String key = keys.remove(id);
+        if (key == null) {
+            return;
+        }
+        Node[] path = path(key, false);
+        Node terminal = path[path.length - 1];
+        terminal.ids = Arrays.stream(terminal.ids).filter(existing -> existing != id).toArray();
+        weights.remove(id);
+        int depth = path.length - 1;
+        while (depth > 0 && path[depth].ids.length == 0 && path[depth].children.length == 0) {
+            path[depth - 1].removeChild(key.charAt(depth - 1));
+            depth--;
+        }
+        refresh(Arrays.copyOf(path, depth + 1));
+    }
+
+    List<Integer> complete(String prefix, int count) {
+        Node node = root;
+        String key = normalize(prefix);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int size = Math.min(count, node.top.length);
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(node.top[i]);
+        }
+        return result;
+    }
+
+    int nodeCount() {
+        return root.size();
+    }
+
+    private Node[] insert(int id, String key, int weight) {
+        keys.put(id, key);
+        weights.put(id, weight);
+        Node[] path = path(key, true);
+        Node terminal = path[path.length - 1];
+        if (Arrays.stream(terminal.ids).noneMatch(existing -> existing == id)) {
+            terminal.ids = Arrays.copyOf(terminal.ids, terminal.ids.length + 1);
+            terminal.ids[terminal.ids.length - 1] = id;
+        }
+        return path;
+    }
+
+    private Node[] path(String key, boolean create) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node next = path[i].child(key.charAt(i));
+            if (next == null) {
+                if (!create) {
+                    return Arrays.copyOf(path, i + 1);
+                }
+                next = path[i].addChild(key.charAt(i));
+            }
+            path[i + 1] = next;
+        }
+        return path;
+    }
+
+    private void refresh(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            refreshNode(path[i]);
+        }
+    }
+
+    private void refreshSubtree(Node node) {
+        for (Node child : node.children) {
+            refreshSubtree(child);
+        }
+        refreshNode(node);
+    }
+
+    private void refreshNode(Node node) {
+        List<Integer> candidates = new ArrayList<>();
+        for (int id : node.ids) {
+            candidates.add(id);
+        }
+        for (Node child : node.children) {
+            for (int id : child.top) {
+                candidates.add(id);
+            }
+        }
+        candidates.sort(ranking);
+        int size = Math.min(maxCompletions, candidates.size());
+        int[] top = new int[size];
+        for (int j = 0; j < size; j++) {
+            top[j] = candidates.get(j);
+        }
+        node.top = top;
+    }
+
+    private static final class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private int[] ids = NO_IDS;
+        private int[] top = NO_IDS;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int insertAt = -Arrays.binarySearch(labels, label) - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            Node child = new Node();
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        int size() {
+            int size = 1;
+            for (Node child : children) {
+                size += child.size();
+            }
+            return size;
+        }
+    }
+}
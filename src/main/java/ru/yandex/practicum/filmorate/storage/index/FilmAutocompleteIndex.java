@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmAutocompleteIndex {
+
+    public static final int MAX_COMPLETIONS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompletionTrie trie = new CompletionTrie(MAX_COMPLETIONS);
+    private final Map<Integer, String> titles = new HashMap<>();
+
+    public FilmAutocompleteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmAutocompleteIndex: rebuilding from database");
+        Map<Integer, String> loadedTitles = new HashMap<>();
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT f.id, f.name, COUNT(fl.like_user_id) AS likes " +
+                "FROM Films f " +
+                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
+                "GROUP BY f.id, f.name", rs -> {
+            loadedTitles.put(rs.getInt("id"), rs.getString("name"));
+            likeCounts.put(rs.getInt("id"), rs.getInt("likes"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            titles.putAll(loadedTitles);
+            trie.load(loadedTitles, likeCounts);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FilmAutocompleteIndex: indexed {} film titles", loadedTitles.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.getFilm();
+        lock.writeLock().lock();
+        try {
+            titles.put(film.getId(), film.getName());
+            trie.put(film.getId(), film.getName(), film.getLikes() != null ? film.getLikes().size() : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            int likes = trie.getWeight(event.getFilmId()) + (event.isAdded() ? 1 : -1);
+            trie.setWeight(event.getFilmId(), Math.max(0, likes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    public List<Completion> complete(String prefix, int count) {
+        lock.readLock().lock();
+        try {
+            return trie.complete(prefix, count).stream()
+                    .map(id -> new Completion(id, titles.get(id)))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
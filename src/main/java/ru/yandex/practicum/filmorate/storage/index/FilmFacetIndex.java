@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.Date;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Film ids per genre, MPA rating and release year, one {@link SparseBitSet} per value. A query
+ * ORs the bitmaps of the values picked within a facet, ANDs the facets and extracts only the
+ * requested page of ids. The count of a facet value is taken with the other facets' filters
+ * applied but not its own, so it tells how many films picking that value as well would match.
+ * The genre and MPA names the counts are shown with are read-only reference data, loaded with
+ * the index.
+ */
+@Slf4j
+@Component
+public class FilmFacetIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableMap<Integer, SparseBitSet> byGenre = new TreeMap<>();
+    private final NavigableMap<Integer, SparseBitSet> byMpa = new TreeMap<>();
+    private final NavigableMap<Integer, SparseBitSet> byYear = new TreeMap<>();
+    private SparseBitSet all = SparseBitSet.EMPTY;
+    private volatile Map<Integer, String> genreNames = Map.of();
+    private volatile Map<Integer, String> mpaNames = Map.of();
+
+    public FilmFacetIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmFacetIndex: rebuilding from database");
+        genreNames = loadNames("SELECT id, name FROM Genres");
+        mpaNames = loadNames("SELECT id, name FROM MPA");
+        Map<Integer, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+        List<Entry> loaded = jdbcTemplate.query("SELECT id, mpa_id, releaseDate FROM Films ORDER BY id",
+                (rs, rowNum) -> {
+                    int filmId = rs.getInt("id");
+                    Date releaseDate = rs.getDate("releaseDate");
+                    return new Entry(filmId,
+                            genresByFilm.getOrDefault(filmId, List.of()).stream().mapToInt(Integer::intValue)
+                                    .distinct().toArray(),
+                            (Integer) rs.getObject("mpa_id"),
+                            releaseDate != null ? releaseDate.toLocalDate().getYear() : null);
+                });
+
+        Map<Integer, List<Integer>> genreBits = new HashMap<>();
+        Map<Integer, List<Integer>> mpaBits = new HashMap<>();
+        Map<Integer, List<Integer>> yearBits = new HashMap<>();
+        for (Entry entry : loaded) {
+            for (int genreId : entry.genreIds()) {
+                genreBits.computeIfAbsent(genreId, id -> new ArrayList<>()).add(entry.filmId());
+            }
+            if (entry.mpaId() != null) {
+                mpaBits.computeIfAbsent(entry.mpaId(), id -> new ArrayList<>()).add(entry.filmId());
+            }
+            if (entry.year() != null) {
+                yearBits.computeIfAbsent(entry.year(), year -> new ArrayList<>()).add(entry.filmId());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            loaded.forEach(entry -> entries.put(entry.filmId(), entry));
+            all = SparseBitSet.of(loaded.stream().mapToInt(Entry::filmId).toArray());
+            load(byGenre, genreBits);
+            load(byMpa, mpaBits);
+            load(byYear, yearBits);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FilmFacetIndex: indexed {} films", loaded.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.getFilm();
+        Entry entry = new Entry(film.getId(),
+                film.getGenres() == null ? new int[0]
+                        : film.getGenres().stream().mapToInt(Genre::getId).distinct().toArray(),
+                film.getMpa() != null ? film.getMpa().getId() : null,
+                film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null);
+
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(entry.filmId(), entry);
+            if (previous != null) {
+                for (int genreId : previous.genreIds()) {
+                    update(byGenre, genreId, previous.filmId(), false);
+                }
+                update(byMpa, previous.mpaId(), previous.filmId(), false);
+                update(byYear, previous.year(), previous.filmId(), false);
+            }
+            for (int genreId : entry.genreIds()) {
+                update(byGenre, genreId, entry.filmId(), true);
+            }
+            update(byMpa, entry.mpaId(), entry.filmId(), true);
+            update(byYear, entry.year(), entry.filmId(), true);
+            all = all.with(entry.filmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Films matching any of the genres, any of the MPA ratings and a release year within the
+     * bounds, ascending by id; an empty set or a null bound leaves that facet unfiltered.
+     */
+    public Selection select(Set<Integer> genreIds, Set<Integer> mpaIds, Integer yearFrom, Integer yearTo,
+                            int offset, int count) {
+        lock.readLock().lock();
+        try {
+            SparseBitSet genreFilter = union(byGenre, genreIds);
+            SparseBitSet mpaFilter = union(byMpa, mpaIds);
+            SparseBitSet yearFilter = yearFrom == null && yearTo == null ? null
+                    : byYear.subMap(yearFrom != null ? yearFrom : Integer.MIN_VALUE, true,
+                    yearTo != null ? yearTo : Integer.MAX_VALUE, true).values().stream()
+                    .reduce(SparseBitSet.EMPTY, SparseBitSet::or);
+
+            SparseBitSet matched = intersect(genreFilter, mpaFilter, yearFilter);
+            return new Selection(matched.toArray(offset, count),
+                    matched.cardinality(),
+                    counts(byGenre, intersect(mpaFilter, yearFilter)),
+                    counts(byMpa, intersect(genreFilter, yearFilter)),
+                    counts(byYear, intersect(genreFilter, mpaFilter)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getGenreName(int genreId) {
+        return genreNames.get(genreId);
+    }
+
+    public String getMpaName(int mpaId) {
+        return mpaNames.get(mpaId);
+    }
+
+    private Map<Integer, String> loadNames(String sql) {
+        Map<Integer, String> names = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            names.put(rs.getInt("id"), rs.getString("name"));
+        });
+        return Map.copyOf(names);
+    }
+
+    private SparseBitSet intersect(SparseBitSet... filters) {
+        SparseBitSet result = all;
+        for (SparseBitSet filter : filters) {
+            if (filter != null) {
+                result = result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static SparseBitSet union(Map<Integer, SparseBitSet> bitmaps, Set<Integer> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        SparseBitSet result = SparseBitSet.EMPTY;
+        for (int value : values) {
+            result = result.or(bitmaps.getOrDefault(value, SparseBitSet.EMPTY));
+        }
+        return result;
+    }
+
+    private static Map<Integer, Integer> counts(NavigableMap<Integer, SparseBitSet> bitmaps, SparseBitSet base) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        bitmaps.forEach((value, films) -> {
+            int count = films.intersectionCount(base);
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+        return counts;
+    }
+
+    private static void load(Map<Integer, SparseBitSet> bitmaps, Map<Integer, List<Integer>> bits) {
+        bitmaps.clear();
+        bits.forEach((value, filmIds) -> bitmaps.put(value,
+                SparseBitSet.of(filmIds.stream().mapToInt(Integer::intValue).sorted().toArray())));
+    }
+
+    private static void update(Map<Integer, SparseBitSet> bitmaps, Integer value, int filmId, boolean added) {
+        if (value == null) {
+            return;
+        }
+        SparseBitSet films = bitmaps.getOrDefault(value, SparseBitSet.EMPTY);
+        films = added ? films.with(filmId) : films.without(filmId);
+        if (films.isEmpty()) {
+            bitmaps.remove(value);
+        } else {
+            bitmaps.put(value, films);
+        }
+    }
+
+    /**
+     * One page of matching film ids, the number of matches, and per facet the match count of
+     * each value that has any.
+     */
+    public record Selection(int[] filmIds, int total, Map<Integer, Integer> genreCounts,
+                            Map<Integer, Integer> mpaCounts, Map<Integer, Integer> yearCounts) {
+    }
+
+    private record Entry(int filmId, int[] genreIds, Integer mpaId, Integer year) {
+    }
+}
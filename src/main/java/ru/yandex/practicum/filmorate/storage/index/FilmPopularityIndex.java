@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.events.ListenerOrder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.Date;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Films ranked by like count, overall and per genre, MPA rating and release year.
+ * Filtered top-N queries walk the head of the smallest matching set instead of aggregating film_likes.
+ */
+@Slf4j
+@Component
+public class FilmPopularityIndex {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> all = new TreeSet<>(RANKING);
+    private final Map<Integer, NavigableSet<Entry>> byGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byMpa = new HashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> byYear = new HashMap<>();
+
+    public FilmPopularityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmPopularityIndex: rebuilding from database");
+        Map<Integer, List<Integer>> genresByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            genresByFilm.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(rs.getInt("genre_id"));
+        });
+
+        List<Entry> loaded = jdbcTemplate.query(
+                "SELECT f.id, f.mpa_id, f.releaseDate, COUNT(fl.like_user_id) AS likes " +
+                        "FROM Films f " +
+                        "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
+                        "GROUP BY f.id, f.mpa_id, f.releaseDate",
+                (rs, rowNum) -> {
+                    int filmId = rs.getInt("id");
+                    Date releaseDate = rs.getDate("releaseDate");
+                    return new Entry(filmId,
+                            rs.getInt("likes"),
+                            rs.getInt("mpa_id"),
+                            releaseDate != null ? releaseDate.toLocalDate().getYear() : null,
+                            toArray(genresByFilm.getOrDefault(filmId, List.of())));
+                });
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            all.clear();
+            byGenre.clear();
+            byMpa.clear();
+            byYear.clear();
+            loaded.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FilmPopularityIndex: indexed {} films", loaded.size());
+    }
+
+    @Order(ListenerOrder.INDEX)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.getFilm();
+        int[] genreIds = film.getGenres() == null ? new int[0]
+                : film.getGenres().stream().mapToInt(Genre::getId).distinct().toArray();
+        Entry entry = new Entry(film.getId(),
+                film.getLikes() != null ? film.getLikes().size() : 0,
+                film.getMpa() != null ? film.getMpa().getId() : 0,
+                film.getReleaseDate() != null ? film.getReleaseDate().getYear() : null,
+                genreIds);
+
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(film.getId());
+            if (previous != null) {
+                remove(previous);
+            }
+            insert(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(ListenerOrder.INDEX)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(event.getFilmId());
+            if (previous == null) {
+                log.warn("FilmPopularityIndex: like change for unknown film {}", event.getFilmId());
+                return;
+            }
+            int likes = Math.max(0, previous.likes() + (event.isAdded() ? 1 : -1));
+            remove(previous);
+            insert(previous.withLikes(likes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(ListenerOrder.INDEX)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    public List<Integer> getTopFilmIds(int count, Integer genreId, Integer mpaId, Integer year) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> candidates = all;
+            if (genreId != null) {
+                candidates = smaller(candidates, byGenre.get(genreId));
+            }
+            if (mpaId != null) {
+                candidates = smaller(candidates, byMpa.get(mpaId));
+            }
+            if (year != null) {
+                candidates = smaller(candidates, byYear.get(year));
+            }
+
+            List<Integer> result = new ArrayList<>(Math.min(count, candidates.size()));
+            for (Entry entry : candidates) {
+                if (result.size() >= count) {
+                    break;
+                }
+                if (entry.matches(genreId, mpaId, year)) {
+                    result.add(entry.filmId());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLikeCount(int filmId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            return entry != null ? entry.likes() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The given films ordered by like count, ties by id, at most {@code count} of them. Ids that
+     * are not indexed are left out.
+     */
+    public List<Integer> rankFilmIds(int[] filmIds, int count) {
+        List<Entry> ranked = new ArrayList<>(filmIds.length);
+        lock.readLock().lock();
+        try {
+            for (int filmId : filmIds) {
+                Entry entry = entries.get(filmId);
+                if (entry != null) {
+                    ranked.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ranked.stream()
+                .sorted(RANKING)
+                .limit(count)
+                .map(Entry::filmId)
+                .toList();
+    }
+
+    private NavigableSet<Entry> smaller(NavigableSet<Entry> current, NavigableSet<Entry> other) {
+        if (other == null) {
+            return Collections.emptyNavigableSet();
+        }
+        return other.size() < current.size() ? other : current;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.filmId(), entry);
+        all.add(entry);
+        for (int genreId : entry.genreIds()) {
+            byGenre.computeIfAbsent(genreId, id -> new TreeSet<>(RANKING)).add(entry);
+        }
+        byMpa.computeIfAbsent(entry.mpaId(), id -> new TreeSet<>(RANKING)).add(entry);
+        if (entry.year() != null) {
+            byYear.computeIfAbsent(entry.year(), y -> new TreeSet<>(RANKING)).add(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.filmId());
+        all.remove(entry);
+        for (int genreId : entry.genreIds()) {
+            removeFrom(byGenre, genreId, entry);
+        }
+        removeFrom(byMpa, entry.mpaId(), entry);
+        if (entry.year() != null) {
+            removeFrom(byYear, entry.year(), entry);
+        }
+    }
+
+    private void removeFrom(Map<Integer, NavigableSet<Entry>> sets, int key, Entry entry) {
+        NavigableSet<Entry> set = sets.get(key);
+        if (set != null) {
+            set.remove(entry);
+            if (set.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    private record Entry(int filmId, int likes, int mpaId, Integer year, int[] genreIds) {
+
+        Entry withLikes(int newLikes) {
+            return new Entry(filmId, newLikes, mpaId, year, genreIds);
+        }
+
+        boolean matches(Integer genreId, Integer mpaIdFilter, Integer yearFilter) {
+            if (mpaIdFilter != null && mpaId != mpaIdFilter) {
+                return false;
+            }
+            if (yearFilter != null && !yearFilter.equals(year)) {
+                return false;
+            }
+            if (genreId != null) {
+                for (int id : genreIds) {
+                    if (id == genreId) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * User-based collaborative filtering over per-user {@link SparseBitSet}s of liked film ids.
+ * Every other user is scored by the number of likes shared with the requesting user on a
+ * fork/join pool; films liked by the best-matching neighbours and not yet by the user are
+ * ranked by the summed overlap of the neighbours who liked them. A scan that runs past the
+ * time budget stops and ranks the neighbours found so far.
+ */
+@Slf4j
+@Component
+public class FilmRecommendationIndex {
+
+    private static final int SCAN_CHUNK = 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxNeighbours;
+    private final long timeBudgetNanos;
+    private final ForkJoinPool pool;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SparseBitSet[] likesByUser = new SparseBitSet[0];
+
+    public FilmRecommendationIndex(JdbcTemplate jdbcTemplate,
+                                   @Value("${filmorate.recommendations.neighbours:10}") int maxNeighbours,
+                                   @Value("${filmorate.recommendations.time-budget-ms:200}") long timeBudgetMs,
+                                   @Value("${filmorate.recommendations.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxNeighbours = maxNeighbours;
+        this.timeBudgetNanos = timeBudgetMs * 1_000_000;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmRecommendationIndex: rebuilding from database");
+        Map<Integer, SparseBitSet> loaded = new HashMap<>();
+        int[] maxUserId = new int[1];
+        jdbcTemplate.query("SELECT like_user_id, film_id FROM film_likes ORDER BY like_user_id, film_id", rs -> {
+            int userId = rs.getInt("like_user_id");
+            int filmId = rs.getInt("film_id");
+            loaded.merge(userId, SparseBitSet.EMPTY.with(filmId), (likes, ignored) -> likes.with(filmId));
+            maxUserId[0] = Math.max(maxUserId[0], userId);
+        });
+
+        SparseBitSet[] newLikes = new SparseBitSet[maxUserId[0] + 1];
+        loaded.forEach((userId, likes) -> newLikes[userId] = likes);
+        load(newLikes);
+        log.info("FilmRecommendationIndex: loaded likes of {} users", loaded.size());
+    }
+
+    void load(SparseBitSet[] newLikes) {
+        lock.writeLock().lock();
+        try {
+            likesByUser = newLikes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            int userId = event.getUserId();
+            if (userId >= likesByUser.length) {
+                if (!event.isAdded()) {
+                    return;
+                }
+                likesByUser = Arrays.copyOf(likesByUser, Math.max(userId + 1, likesByUser.length * 3 / 2));
+            }
+            SparseBitSet likes = likesByUser[userId] != null ? likesByUser[userId] : SparseBitSet.EMPTY;
+            likesByUser[userId] = event.isAdded() ? likes.with(event.getFilmId()) : likes.without(event.getFilmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    /**
+     * Only the array reference is read under the lock; the scan runs without it, so likes are
+     * never held up by a recommendation. A like made meanwhile replaces one slot with another
+     * immutable {@link SparseBitSet}, which the scan sees either before or after the change.
+     */
+    public int[] getRecommendedFilmIds(int userId, int limit) {
+        SparseBitSet[] likes;
+        lock.readLock().lock();
+        try {
+            likes = likesByUser;
+        } finally {
+            lock.readLock().unlock();
+        }
+        SparseBitSet target = userId >= 0 && userId < likes.length ? likes[userId] : null;
+        if (target == null || target.isEmpty()) {
+            return new int[0];
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Neighbours neighbours = pool.invoke(new ScanTask(likes, target, userId, 0, likes.length, deadline));
+        if (neighbours.truncated) {
+            log.warn("FilmRecommendationIndex: time budget exhausted for user {}, ranking partial scan", userId);
+        }
+        return rank(likes, neighbours, target, limit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private int[] rank(SparseBitSet[] likes, Neighbours neighbours, SparseBitSet target, int limit) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (int i = 0; i < neighbours.size; i++) {
+            int overlap = neighbours.overlaps[i];
+            for (int filmId : likes[neighbours.userIds[i]].toArray()) {
+                if (!target.contains(filmId)) {
+                    scores.merge(filmId, overlap, Integer::sum);
+                }
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private final class ScanTask extends RecursiveTask<Neighbours> {
+        private final SparseBitSet[] likes;
+        private final SparseBitSet target;
+        private final int userId;
+        private final int from;
+        private final int to;
+        private final long deadline;
+
+        ScanTask(SparseBitSet[] likes, SparseBitSet target, int userId, int from, int to, long deadline) {
+            this.likes = likes;
+            this.target = target;
+            this.userId = userId;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Neighbours compute() {
+            if (to - from > SCAN_CHUNK) {
+                int middle = (from + to) >>> 1;
+                ScanTask left = new ScanTask(likes, target, userId, from, middle, deadline);
+                left.fork();
+                Neighbours right = new ScanTask(likes, target, userId, middle, to, deadline).compute();
+                return left.join().mergeWith(right);
+            }
+            Neighbours neighbours = new Neighbours(maxNeighbours);
+            if (System.nanoTime() > deadline) {
+                neighbours.truncated = true;
+                return neighbours;
+            }
+            for (int candidate = from; candidate < to; candidate++) {
+                if (candidate != userId && likes[candidate] != null) {
+                    neighbours.offer(candidate, target.intersectionCount(likes[candidate]));
+                }
+            }
+            return neighbours;
+        }
+    }
+
+    /**
+     * Bounded list of the users with the largest overlap, best first.
+     */
+    private static final class Neighbours {
+        private final int[] userIds;
+        private final int[] overlaps;
+        private int size;
+        private boolean truncated;
+
+        Neighbours(int capacity) {
+            userIds = new int[capacity];
+            overlaps = new int[capacity];
+        }
+
+        void offer(int userId, int overlap) {
+            if (overlap == 0 || (size == overlaps.length && overlap <= overlaps[size - 1])) {
+                return;
+            }
+            int position = size < overlaps.length ? size++ : size - 1;
+            while (position > 0 && overlaps[position - 1] < overlap) {
+                userIds[position] = userIds[position - 1];
+                overlaps[position] = overlaps[position - 1];
+                position--;
+            }
+            userIds[position] = userId;
+            overlaps[position] = overlap;
+        }
+
+        Neighbours mergeWith(Neighbours other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.userIds[i], other.overlaps[i]);
+            }
+            truncated |= other.truncated;
+            return this;
+        }
+    }
+}
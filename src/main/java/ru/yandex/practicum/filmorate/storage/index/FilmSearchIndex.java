@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over film names and descriptions. Terms are kept sorted so that a query token
+ * matches both the exact term and every term it is a prefix of; exact and name hits rank higher.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    private final Map<Integer, Set<String>> termsByFilm = new HashMap<>();
+
+    public FilmSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmSearchIndex: rebuilding from database");
+        Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name, description FROM Films", rs -> {
+            documents.put(rs.getInt("id"), weighTerms(rs.getString("name"), rs.getString("description")));
+        });
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByFilm.clear();
+            documents.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FilmSearchIndex: indexed {} films", documents.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.getFilm();
+        Map<String, Integer> terms = weighTerms(film.getName(), film.getDescription());
+        lock.writeLock().lock();
+        try {
+            remove(film.getId());
+            insert(film.getId(), terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Integer> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<Integer, Double> tokenScores = scoreToken(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((filmId, score) -> score + tokenScores.get(filmId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                current.append(c == 'ё' ? 'е' : c);
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    private Map<Integer, Double> scoreToken(String token) {
+        Map<Integer, Double> tokenScores = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Integer>> term : postings.tailMap(token, true).entrySet()) {
+            if (!term.getKey().startsWith(token)) {
+                break;
+            }
+            double factor = term.getKey().length() == token.length() ? 1.0 : PREFIX_FACTOR;
+            term.getValue().forEach((filmId, weight) -> tokenScores.merge(filmId, weight * factor, Math::max));
+        }
+        return tokenScores;
+    }
+
+    private Map<String, Integer> weighTerms(String name, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(name).forEach(term -> terms.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(term -> terms.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        return terms;
+    }
+
+    private void insert(int filmId, Map<String, Integer> terms) {
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(filmId, weight));
+        termsByFilm.put(filmId, terms.keySet());
+    }
+
+    private void remove(int filmId) {
+        Set<String> terms = termsByFilm.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Integer> films = postings.get(term);
+            if (films != null) {
+                films.remove(filmId);
+                if (films.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Films ranked by a like score that halves every half-life. Uses forward decay: a like made at t
+ * adds 2^((t - epoch) / halfLife) to its film's score, so every score decays by the same factor and
+ * the ranking only changes on likes and unlikes, each an O(log n) update. The decay is applied when
+ * a score is read. Once the weights grow close to the double range, the epoch moves forward and
+ * every score is scaled down once, which happens after hundreds of half-lives.
+ */
+@Slf4j
+@Component
+public class FilmTrendingIndex {
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingInt(Entry::filmId);
+    private static final double MAX_EXPONENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double decayPerMilli;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING);
+    private LocalDateTime epoch = LocalDateTime.now();
+
+    public FilmTrendingIndex(JdbcTemplate jdbcTemplate,
+                             @Value("${filmorate.trending.half-life-hours:24}") double halfLifeHours) {
+        if (halfLifeHours <= 0) {
+            throw new IllegalArgumentException("filmorate.trending.half-life-hours must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.decayPerMilli = Math.log(2) / (halfLifeHours * Duration.ofHours(1).toMillis());
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmTrendingIndex: rebuilding from database");
+        List<Object[]> likes = jdbcTemplate.query("SELECT film_id, liked_at FROM film_likes",
+                (rs, rowNum) -> new Object[]{rs.getInt("film_id"), rs.getObject("liked_at", LocalDateTime.class)});
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            ranking.clear();
+            epoch = LocalDateTime.now();
+            for (Object[] like : likes) {
+                apply((Integer) like[0], (LocalDateTime) like[1], true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FilmTrendingIndex: indexed {} likes of {} films", likes.size(), entries.size());
+    }
+
+    /**
+     * Changes replayed from other nodes carry no liked_at; for those the film's likes are read
+     * again. That happens on the change log poller's thread, never while serving a request.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        if (event.getLikedAt() == null) {
+            reloadFilm(event.getFilmId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(event.getFilmId(), event.getLikedAt(), event.isAdded());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    public List<Integer> getTrendingFilmIds(int count) {
+        lock.readLock().lock();
+        try {
+            List<Integer> result = new ArrayList<>(Math.min(count, ranking.size()));
+            for (Entry entry : ranking) {
+                if (result.size() >= count) {
+                    break;
+                }
+                result.add(entry.filmId());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The film's score at the given time, in likes: a like made then counts 1, one made a
+     * half-life earlier 0.5.
+     */
+    public double getScore(int filmId, LocalDateTime at) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            return entry != null ? entry.score() / weight(at) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reloadFilm(int filmId) {
+        List<LocalDateTime> likedAt = jdbcTemplate.queryForList(
+                "SELECT liked_at FROM film_likes WHERE film_id = ?", LocalDateTime.class, filmId);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(filmId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            likedAt.forEach(at -> apply(filmId, at, true));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(int filmId, LocalDateTime likedAt, boolean added) {
+        if (exponent(likedAt) > MAX_EXPONENT) {
+            rebase(likedAt);
+        }
+        Entry previous = entries.get(filmId);
+        if (previous == null && !added) {
+            return;
+        }
+        double score = previous != null ? previous.score() : 0;
+        int likes = previous != null ? previous.likes() : 0;
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        if (added) {
+            score += weight(likedAt);
+            likes++;
+        } else {
+            score -= weight(likedAt);
+            likes--;
+        }
+        if (likes <= 0) {
+            entries.remove(filmId);
+            return;
+        }
+        Entry entry = new Entry(filmId, Math.max(0, score), likes);
+        entries.put(filmId, entry);
+        ranking.add(entry);
+    }
+
+    private void rebase(LocalDateTime newEpoch) {
+        double scale = 1 / weight(newEpoch);
+        List<Entry> rescaled = entries.values().stream()
+                .map(entry -> new Entry(entry.filmId(), entry.score() * scale, entry.likes()))
+                .toList();
+        entries.clear();
+        ranking.clear();
+        rescaled.forEach(entry -> {
+            entries.put(entry.filmId(), entry);
+            ranking.add(entry);
+        });
+        epoch = newEpoch;
+        log.info("FilmTrendingIndex: moved the decay epoch to {}", newEpoch);
+    }
+
+    private double weight(LocalDateTime at) {
+        return Math.exp(exponent(at));
+    }
+
+    private double exponent(LocalDateTime at) {
+        return decayPerMilli * Duration.between(epoch, at).toNanos() / 1e6;
+    }
+
+    private record Entry(int filmId, double score, int likes) {
+    }
+}
@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.model.PopularityWindow;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Like counts per film over the last hour, day and week, kept in ring buffers of per-minute (60)
+ * and per-hour (168) buckets. Memory is bounded by films liked within the week times the buckets,
+ * whatever the like volume. Each film's rings are rotated lazily when touched, and running totals
+ * per window make a top-k query one pass over the films with recent likes. Windows are bucket
+ * aligned: "24h" is the current hour plus the 23 before it.
+ */
+@Slf4j
+@Component
+public class FilmWindowIndex {
+
+    private static final int MINUTES = 60;
+    private static final int HOURS = 24 * 7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Lock lock = new ReentrantLock();
+    private final Map<Integer, Counters> counters = new HashMap<>();
+
+    @Autowired
+    public FilmWindowIndex(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    FilmWindowIndex(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FilmWindowIndex: rebuilding from the last week of film_likes");
+        long nowMinute = minuteOf(LocalDateTime.now(clock));
+        List<Object[]> likes = jdbcTemplate.query("SELECT film_id, liked_at FROM film_likes WHERE liked_at > ?",
+                (rs, rowNum) -> new Object[]{rs.getInt("film_id"), rs.getObject("liked_at", LocalDateTime.class)},
+                LocalDateTime.now(clock).minusHours(HOURS));
+
+        lock.lock();
+        try {
+            counters.clear();
+            for (Object[] like : likes) {
+                apply((Integer) like[0], minuteOf((LocalDateTime) like[1]), 1, nowMinute);
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("FilmWindowIndex: indexed {} recent likes of {} films", likes.size(), counters.size());
+    }
+
+    /**
+     * Changes replayed from other nodes carry no liked_at; for those the film's likes of the
+     * last week are read again, on the change log poller's thread.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        if (event.getLikedAt() == null) {
+            reloadFilm(event.getFilmId());
+            return;
+        }
+        lock.lock();
+        try {
+            apply(event.getFilmId(), minuteOf(event.getLikedAt()), event.isAdded() ? 1 : -1,
+                    minuteOf(LocalDateTime.now(clock)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    public List<Integer> getTopFilmIds(PopularityWindow window, int count) {
+        PriorityQueue<int[]> top = new PriorityQueue<>(Comparator.<int[]>comparingInt(entry -> entry[1])
+                .thenComparing(entry -> -entry[0]));
+        lock.lock();
+        try {
+            long nowMinute = minuteOf(LocalDateTime.now(clock));
+            Iterator<Map.Entry<Integer, Counters>> iterator = counters.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Counters> film = iterator.next();
+                Counters filmCounters = film.getValue();
+                filmCounters.advance(nowMinute);
+                if (filmCounters.week <= 0) {
+                    iterator.remove();
+                    continue;
+                }
+                int likes = filmCounters.total(window);
+                if (likes <= 0) {
+                    continue;
+                }
+                top.add(new int[]{film.getKey(), likes});
+                if (top.size() > count) {
+                    top.poll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Integer> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll()[0]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void reloadFilm(int filmId) {
+        List<LocalDateTime> likedAt = jdbcTemplate.queryForList(
+                "SELECT liked_at FROM film_likes WHERE film_id = ? AND liked_at > ?", LocalDateTime.class,
+                filmId, LocalDateTime.now(clock).minusHours(HOURS));
+        lock.lock();
+        try {
+            long nowMinute = minuteOf(LocalDateTime.now(clock));
+            counters.remove(filmId);
+            likedAt.forEach(at -> apply(filmId, minuteOf(at), 1, nowMinute));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(int filmId, long likeMinute, int delta, long nowMinute) {
+        Counters filmCounters = counters.get(filmId);
+        if (filmCounters == null) {
+            if (delta < 0) {
+                return;
+            }
+            filmCounters = new Counters(nowMinute);
+            counters.put(filmId, filmCounters);
+        }
+        filmCounters.advance(nowMinute);
+        filmCounters.add(Math.min(likeMinute, nowMinute), delta);
+        if (filmCounters.week <= 0) {
+            counters.remove(filmId);
+        }
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static final class Counters {
+        private final int[] minutes = new int[MINUTES];
+        private final int[] hours = new int[HOURS];
+        private long minute;
+        /**
+         * Likes in the current minute and the 59 before it.
+         */
+        private int lastHour;
+        /**
+         * Likes in the current hour and the 23 before it.
+         */
+        private int lastDay;
+        private int week;
+
+        private Counters(long nowMinute) {
+            this.minute = nowMinute;
+        }
+
+        private int total(PopularityWindow window) {
+            return switch (window) {
+                case HOUR -> lastHour;
+                case DAY -> lastDay;
+                case WEEK -> week;
+            };
+        }
+
+        private void advance(long nowMinute) {
+            if (nowMinute <= minute) {
+                return;
+            }
+            long currentHour = Math.floorDiv(minute, 60);
+            long nowHour = Math.floorDiv(nowMinute, 60);
+            for (long m = minute + 1; m <= Math.min(nowMinute, minute + MINUTES); m++) {
+                int slot = Math.floorMod(m, MINUTES);
+                lastHour -= minutes[slot];
+                minutes[slot] = 0;
+            }
+            for (long h = currentHour + 1; h <= Math.min(nowHour, currentHour + HOURS); h++) {
+                lastDay -= hours[Math.floorMod(h - 24, HOURS)];
+                int slot = Math.floorMod(h, HOURS);
+                week -= hours[slot];
+                hours[slot] = 0;
+            }
+            minute = nowMinute;
+        }
+
+        private void add(long likeMinute, int delta) {
+            long likeHour = Math.floorDiv(likeMinute, 60);
+            long nowHour = Math.floorDiv(minute, 60);
+            if (likeHour <= nowHour - HOURS) {
+                return;
+            }
+            hours[Math.floorMod(likeHour, HOURS)] += delta;
+            week += delta;
+            if (likeHour > nowHour - 24) {
+                lastDay += delta;
+            }
+            if (likeMinute > minute - MINUTES) {
+                minutes[Math.floorMod(likeMinute, MINUTES)] += delta;
+                lastHour += delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+import ru.yandex.practicum.filmorate.model.FeedEvent.EventType;
+import ru.yandex.practicum.filmorate.model.FeedEvent.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory activity feed: likes and friend additions of a user's friends, newest first.
+ * Every user's own actions go to a fixed-size outbox ring; actions of users with at most
+ * {@code fanout-threshold} followers are also pushed into each follower's inbox ring. Feeds of
+ * users who follow someone above the threshold merge their inbox with those outboxes on read.
+ * Publishing takes no global lock, only each ring's own, so concurrent events may reach a ring
+ * out of sequence; snapshots put them back in order.
+ */
+@Slf4j
+@Component
+public class FriendFeed {
+
+    private final FriendshipGraph friendshipGraph;
+    private final int capacity;
+    private final int fanoutThreshold;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Integer, FeedRing> inboxes = new ConcurrentHashMap<>();
+    private final Map<Integer, FeedRing> outboxes = new ConcurrentHashMap<>();
+
+    public FriendFeed(FriendshipGraph friendshipGraph,
+                      @Value("${filmorate.feed.capacity:100}") int capacity,
+                      @Value("${filmorate.feed.fanout-threshold:5000}") int fanoutThreshold) {
+        this.friendshipGraph = friendshipGraph;
+        this.capacity = capacity;
+        this.fanoutThreshold = fanoutThreshold;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        publish(event.getUserId(), EventType.LIKE, event.isAdded(), event.getFilmId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        publish(event.getUserId(), EventType.FRIEND, event.isAdded(), event.getFriendId());
+    }
+
+    public List<FeedEvent> getFeed(int userId, int limit) {
+        List<FeedEvent[]> sources = new ArrayList<>();
+        FeedRing inbox = inboxes.get(userId);
+        if (inbox != null) {
+            sources.add(inbox.snapshot());
+        }
+        for (int friendId : friendshipGraph.getFriendIds(userId)) {
+            FeedRing outbox = outboxes.get(friendId);
+            if (outbox != null && friendshipGraph.getFollowerCount(friendId) > fanoutThreshold) {
+                sources.add(outbox.snapshot());
+            }
+        }
+        return merge(sources, limit);
+    }
+
+    private void publish(int actorId, EventType type, boolean added, int entityId) {
+        FeedEvent feedEvent = new FeedEvent(sequence.incrementAndGet(), System.currentTimeMillis(), actorId, type,
+                added ? Operation.ADD : Operation.REMOVE, entityId);
+        outboxes.computeIfAbsent(actorId, id -> new FeedRing(capacity)).add(feedEvent);
+
+        int[] followers = friendshipGraph.getFollowerIds(actorId);
+        if (followers.length > fanoutThreshold) {
+            log.debug("FriendFeed: user {} has {} followers, event {} is served on read",
+                    actorId, followers.length, feedEvent.getEventId());
+            return;
+        }
+        for (int followerId : followers) {
+            inboxes.computeIfAbsent(followerId, id -> new FeedRing(capacity)).add(feedEvent);
+        }
+    }
+
+    /**
+     * K-way merge of newest-first event arrays, dropping events seen in more than one source.
+     */
+    private static List<FeedEvent> merge(List<FeedEvent[]> sources, int limit) {
+        if (sources.size() == 1) {
+            FeedEvent[] events = sources.get(0);
+            return List.of(events).subList(0, Math.min(limit, events.length));
+        }
+        PriorityQueue<int[]> cursors = new PriorityQueue<>((a, b) ->
+                Long.compare(sources.get(b[0])[b[1]].getEventId(), sources.get(a[0])[a[1]].getEventId()));
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).length > 0) {
+                cursors.add(new int[]{i, 0});
+            }
+        }
+        List<FeedEvent> feed = new ArrayList<>(limit);
+        long lastEventId = -1;
+        while (!cursors.isEmpty() && feed.size() < limit) {
+            int[] cursor = cursors.poll();
+            FeedEvent[] source = sources.get(cursor[0]);
+            FeedEvent event = source[cursor[1]];
+            if (event.getEventId() != lastEventId) {
+                feed.add(event);
+                lastEventId = event.getEventId();
+            }
+            if (++cursor[1] < source.length) {
+                cursors.add(cursor);
+            }
+        }
+        return feed;
+    }
+
+    /**
+     * Fixed-capacity ring of the most recent events; the oldest event is overwritten when full.
+     * Snapshots are newest first by event id.
+     */
+    private static final class FeedRing {
+        private final FeedEvent[] slots;
+        private long written;
+
+        FeedRing(int capacity) {
+            slots = new FeedEvent[capacity];
+        }
+
+        synchronized void add(FeedEvent event) {
+            slots[(int) (written++ % slots.length)] = event;
+        }
+
+        synchronized FeedEvent[] snapshot() {
+            int size = (int) Math.min(written, slots.length);
+            FeedEvent[] events = new FeedEvent[size];
+            for (int i = 0; i < size; i++) {
+                events[i] = slots[(int) ((written - 1 - i) % slots.length)];
+            }
+            Arrays.sort(events, Comparator.comparingLong(FeedEvent::getEventId).reversed());
+            return events;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.ListenerOrder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "People you may know": non-friends ranked by mutual friend count, found by a two-hop walk over
+ * {@link FriendshipGraph}. Friends with more than {@code fanout-cap} friends contribute only a
+ * sample of their list, at most {@code fanout-cap} entries. Results are cached per user until a
+ * friendship of that user or of one of their friends changes; the cache is invalidated after the
+ * graph has applied the change.
+ */
+@Slf4j
+@Component
+public class FriendSuggestionCache {
+
+    private final FriendshipGraph friendshipGraph;
+    private final int maxSuggestions;
+    private final int fanoutCap;
+    private final Map<Integer, int[]> cache = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> dependents = new ConcurrentHashMap<>();
+
+    public FriendSuggestionCache(FriendshipGraph friendshipGraph,
+                                 @Value("${filmorate.friends.suggestions.max:50}") int maxSuggestions,
+                                 @Value("${filmorate.friends.suggestions.fanout-cap:1000}") int fanoutCap) {
+        this.friendshipGraph = friendshipGraph;
+        this.maxSuggestions = maxSuggestions;
+        this.fanoutCap = fanoutCap;
+    }
+
+    public int[] getSuggestedIds(int userId, int limit) {
+        int[] suggestions = cache.computeIfAbsent(userId, this::compute);
+        return Arrays.copyOf(suggestions, Math.min(limit, suggestions.length));
+    }
+
+    @Order(ListenerOrder.DERIVED_CACHE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        cache.remove(event.getUserId());
+        Set<Integer> affected = dependents.remove(event.getUserId());
+        if (affected != null) {
+            affected.forEach(cache::remove);
+        }
+    }
+
+    private int[] compute(int userId) {
+        int[] friends = friendshipGraph.getFriendIds(userId);
+        IntCounter mutualCounts = new IntCounter(Math.max(16, friends.length * 4));
+        for (int friendId : friends) {
+            dependents.computeIfAbsent(friendId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+            int[] friendsOfFriend = friendshipGraph.getFriendIds(friendId);
+            int step = (friendsOfFriend.length + fanoutCap - 1) / fanoutCap;
+            for (int i = 0; i < friendsOfFriend.length; i += step) {
+                int candidate = friendsOfFriend[i];
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    mutualCounts.increment(candidate);
+                }
+            }
+        }
+        int[] ranked = mutualCounts.topKeys(maxSuggestions);
+        log.debug("FriendSuggestionCache: computed {} suggestions for user {}", ranked.length, userId);
+        return ranked;
+    }
+
+    /**
+     * Open-addressing int to int counter, so the two-hop walk allocates no boxed keys.
+     */
+    private static final class IntCounter {
+        private int[] keys;
+        private int[] counts;
+        private boolean[] used;
+        private int size;
+
+        IntCounter(int expected) {
+            int capacity = Integer.highestOneBit(expected * 2 - 1) << 1;
+            keys = new int[capacity];
+            counts = new int[capacity];
+            used = new boolean[capacity];
+        }
+
+        void increment(int key) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int slot = slot(key, keys, used);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot]++;
+        }
+
+        int[] topKeys(int k) {
+            int[] slots = new int[size];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    slots[n++] = i;
+                }
+            }
+            return Arrays.stream(slots)
+                    .boxed()
+                    .sorted((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a])
+                            : Integer.compare(keys[a], keys[b]))
+                    .limit(k)
+                    .mapToInt(slot -> keys[slot])
+                    .toArray();
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(oldKeys[i], keys, used);
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int slot(int key, int[] keys, boolean[] used) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 1 & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.ListenerOrder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Friend lists of every user in compressed sparse row form: friends of user {@code u} are
+ * {@code neighbors[offsets[u]..offsets[u + 1])}, sorted ascending. The reverse relation (users
+ * who have {@code u} as a friend) is kept the same way. Rows changed since the last compaction
+ * live in an overlay and are folded back into the arrays periodically.
+ */
+@Slf4j
+@Component
+public class FriendshipGraph {
+
+    private static final int[] NO_FRIENDS = new int[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int compactionThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Adjacency friends = new Adjacency();
+    private final Adjacency followers = new Adjacency();
+
+    public FriendshipGraph(JdbcTemplate jdbcTemplate,
+                           @Value("${filmorate.friends.compaction-threshold:10000}") int compactionThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("FriendshipGraph: rebuilding from database");
+        Integer maxUserId = jdbcTemplate.queryForObject(
+                "SELECT GREATEST(COALESCE(MAX(user_id), 0), COALESCE(MAX(friend_id), 0)) FROM user_friends", Integer.class);
+        int[][] friendRows = load("user_id", "friend_id", maxUserId);
+        int[][] followerRows = load("friend_id", "user_id", maxUserId);
+
+        lock.writeLock().lock();
+        try {
+            friends.reset(friendRows[0], friendRows[1]);
+            followers.reset(followerRows[0], followerRows[1]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("FriendshipGraph: loaded {} friend relations", friendRows[1].length);
+    }
+
+    @Order(ListenerOrder.INDEX)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        boolean compactionDue;
+        lock.writeLock().lock();
+        try {
+            friends.update(event.getUserId(), event.getFriendId(), event.isAdded());
+            followers.update(event.getFriendId(), event.getUserId(), event.isAdded());
+            compactionDue = friends.overlay.size() + followers.overlay.size() >= compactionThreshold;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compactionDue) {
+            compact();
+        }
+    }
+
+    public int[] getFriendIds(int userId) {
+        lock.readLock().lock();
+        try {
+            return friends.copyRow(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getFollowerIds(int userId) {
+        lock.readLock().lock();
+        try {
+            return followers.copyRow(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getFollowerCount(int userId) {
+        lock.readLock().lock();
+        try {
+            return followers.rowLength(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getCommonFriendIds(int userId1, int userId2) {
+        lock.readLock().lock();
+        try {
+            return SortedIntArrays.intersect(friends.row(userId1), friends.row(userId2));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.friends.compaction-interval-ms:60000}")
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            if (friends.overlay.isEmpty() && followers.overlay.isEmpty()) {
+                return;
+            }
+            log.debug("FriendshipGraph: compacting {} changed rows", friends.overlay.size() + followers.overlay.size());
+            friends.compact();
+            followers.compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int[][] load(String keyColumn, String valueColumn, int maxUserId) {
+        int[] offsets = new int[maxUserId + 2];
+        jdbcTemplate.query("SELECT " + keyColumn + ", COUNT(*) AS cnt FROM user_friends GROUP BY " + keyColumn, rs -> {
+            offsets[rs.getInt(keyColumn) + 1] = rs.getInt("cnt");
+        });
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        int[] neighbors = new int[offsets[offsets.length - 1]];
+        int[] position = new int[1];
+        jdbcTemplate.query("SELECT " + valueColumn + " FROM user_friends ORDER BY " + keyColumn + ", " + valueColumn, rs -> {
+            neighbors[position[0]++] = rs.getInt(valueColumn);
+        });
+        return new int[][]{offsets, neighbors};
+    }
+
+    /**
+     * One direction of the relation: CSR arrays plus the overlay of rows changed since compaction.
+     */
+    private static final class Adjacency {
+        private int[] offsets = new int[1];
+        private int[] neighbors = NO_FRIENDS;
+        private final Map<Integer, int[]> overlay = new HashMap<>();
+
+        void reset(int[] newOffsets, int[] newNeighbors) {
+            offsets = newOffsets;
+            neighbors = newNeighbors;
+            overlay.clear();
+        }
+
+        void update(int userId, int otherId, boolean added) {
+            int[] row = row(userId);
+            overlay.put(userId, added ? SortedIntArrays.insert(row, otherId) : SortedIntArrays.remove(row, otherId));
+        }
+
+        void compact() {
+            if (overlay.isEmpty()) {
+                return;
+            }
+            int maxUserId = offsets.length - 2;
+            for (int userId : overlay.keySet()) {
+                maxUserId = Math.max(maxUserId, userId);
+            }
+
+            int[] newOffsets = new int[maxUserId + 2];
+            for (int userId = 0; userId <= maxUserId; userId++) {
+                newOffsets[userId + 1] = newOffsets[userId] + rowLength(userId);
+            }
+            int[] newNeighbors = new int[newOffsets[maxUserId + 1]];
+            for (int userId = 0; userId <= maxUserId; userId++) {
+                int[] overlayRow = overlay.get(userId);
+                if (overlayRow != null) {
+                    System.arraycopy(overlayRow, 0, newNeighbors, newOffsets[userId], overlayRow.length);
+                } else if (userId + 1 < offsets.length) {
+                    System.arraycopy(neighbors, offsets[userId], newNeighbors, newOffsets[userId],
+                            offsets[userId + 1] - offsets[userId]);
+                }
+            }
+            reset(newOffsets, newNeighbors);
+        }
+
+        int rowLength(int userId) {
+            int[] overlayRow = overlay.get(userId);
+            if (overlayRow != null) {
+                return overlayRow.length;
+            }
+            return userId >= 0 && userId + 1 < offsets.length ? offsets[userId + 1] - offsets[userId] : 0;
+        }
+
+        /**
+         * The row as an array the caller may keep: overlay rows are shared and cloned, CSR rows
+         * are sliced, so either way the row is copied once.
+         */
+        int[] copyRow(int userId) {
+            int[] overlayRow = overlay.get(userId);
+            return overlayRow != null ? overlayRow.clone() : row(userId);
+        }
+
+        int[] row(int userId) {
+            int[] overlayRow = overlay.get(userId);
+            if (overlayRow != null) {
+                return overlayRow;
+            }
+            if (userId < 0 || userId + 1 >= offsets.length) {
+                return NO_FRIENDS;
+            }
+            return Arrays.copyOfRange(neighbors, offsets[userId], offsets[userId + 1]);
+        }
+    }
+}
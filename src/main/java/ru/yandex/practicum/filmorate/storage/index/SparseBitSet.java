@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bitset that stores only its non-zero 64-bit words, so a user who liked a handful of
+ * films out of a large catalog costs a few words instead of catalog-size / 8 bytes. AND and OR
+ * walk the two word lists in step and never touch the empty stretches between them.
+ */
+final class SparseBitSet {
+
+    static final SparseBitSet EMPTY = new SparseBitSet(new int[0], new long[0]);
+
+    private final int[] wordIndexes;
+    private final long[] words;
+
+    private SparseBitSet(int[] wordIndexes, long[] words) {
+        this.wordIndexes = wordIndexes;
+        this.words = words;
+    }
+
+    static SparseBitSet of(int[] sortedBits) {
+        int[] newIndexes = new int[sortedBits.length];
+        long[] newWords = new long[sortedBits.length];
+        int size = 0;
+        for (int bit : sortedBits) {
+            int wordIndex = bit >>> 6;
+            if (size == 0 || newIndexes[size - 1] != wordIndex) {
+                newIndexes[size++] = wordIndex;
+            }
+            newWords[size - 1] |= 1L << bit;
+        }
+        return size == 0 ? EMPTY : new SparseBitSet(Arrays.copyOf(newIndexes, size), Arrays.copyOf(newWords, size));
+    }
+
+    SparseBitSet with(int bit) {
+        int wordIndex = bit >>> 6;
+        long mask = 1L << bit;
+        int position = Arrays.binarySearch(wordIndexes, wordIndex);
+        if (position >= 0) {
+            if ((words[position] & mask) != 0) {
+                return this;
+            }
+            long[] newWords = words.clone();
+            newWords[position] |= mask;
+            return new SparseBitSet(wordIndexes, newWords);
+        }
+        int insertAt = -position - 1;
+        int[] newIndexes = new int[wordIndexes.length + 1];
+        long[] newWords = new long[words.length + 1];
+        System.arraycopy(wordIndexes, 0, newIndexes, 0, insertAt);
+        System.arraycopy(words, 0, newWords, 0, insertAt);
+        newIndexes[insertAt] = wordIndex;
+        newWords[insertAt] = mask;
+        System.arraycopy(wordIndexes, insertAt, newIndexes, insertAt + 1, wordIndexes.length - insertAt);
+        System.arraycopy(words, insertAt, newWords, insertAt + 1, words.length - insertAt);
+        return new SparseBitSet(newIndexes, newWords);
+    }
+
+    SparseBitSet without(int bit) {
+        int position = Arrays.binarySearch(wordIndexes, bit >>> 6);
+        long mask = 1L << bit;
+        if (position < 0 || (words[position] & mask) == 0) {
+            return this;
+        }
+        long word = words[position] & ~mask;
+        if (word != 0) {
+            long[] newWords = words.clone();
+            newWords[position] = word;
+            return new SparseBitSet(wordIndexes, newWords);
+        }
+        int[] newIndexes = new int[wordIndexes.length - 1];
+        long[] newWords = new long[words.length - 1];
+        System.arraycopy(wordIndexes, 0, newIndexes, 0, position);
+        System.arraycopy(words, 0, newWords, 0, position);
+        System.arraycopy(wordIndexes, position + 1, newIndexes, position, wordIndexes.length - position - 1);
+        System.arraycopy(words, position + 1, newWords, position, words.length - position - 1);
+        return new SparseBitSet(newIndexes, newWords);
+    }
+
+    boolean contains(int bit) {
+        int position = Arrays.binarySearch(wordIndexes, bit >>> 6);
+        return position >= 0 && (words[position] & (1L << bit)) != 0;
+    }
+
+    boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    SparseBitSet and(SparseBitSet other) {
+        int size = Math.min(words.length, other.words.length);
+        int[] newIndexes = new int[size];
+        long[] newWords = new long[size];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < wordIndexes.length && j < other.wordIndexes.length) {
+            if (wordIndexes[i] < other.wordIndexes[j]) {
+                i++;
+            } else if (wordIndexes[i] > other.wordIndexes[j]) {
+                j++;
+            } else {
+                long word = words[i] & other.words[j];
+                if (word != 0) {
+                    newIndexes[n] = wordIndexes[i];
+                    newWords[n++] = word;
+                }
+                i++;
+                j++;
+            }
+        }
+        return n == 0 ? EMPTY : new SparseBitSet(Arrays.copyOf(newIndexes, n), Arrays.copyOf(newWords, n));
+    }
+
+    SparseBitSet or(SparseBitSet other) {
+        int[] newIndexes = new int[words.length + other.words.length];
+        long[] newWords = new long[words.length + other.words.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < wordIndexes.length || j < other.wordIndexes.length) {
+            if (j == other.wordIndexes.length || i < wordIndexes.length && wordIndexes[i] < other.wordIndexes[j]) {
+                newIndexes[n] = wordIndexes[i];
+                newWords[n++] = words[i++];
+            } else if (i == wordIndexes.length || wordIndexes[i] > other.wordIndexes[j]) {
+                newIndexes[n] = other.wordIndexes[j];
+                newWords[n++] = other.words[j++];
+            } else {
+                newIndexes[n] = wordIndexes[i];
+                newWords[n++] = words[i++] | other.words[j++];
+            }
+        }
+        return n == 0 ? EMPTY : new SparseBitSet(Arrays.copyOf(newIndexes, n), Arrays.copyOf(newWords, n));
+    }
+
+    int intersectionCount(SparseBitSet other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < wordIndexes.length && j < other.wordIndexes.length) {
+            if (wordIndexes[i] < other.wordIndexes[j]) {
+                i++;
+            } else if (wordIndexes[i] > other.wordIndexes[j]) {
+                j++;
+            } else {
+                count += Long.bitCount(words[i] & other.words[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    int[] toArray() {
+        return toArray(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * At most {@code limit} set bits in ascending order, after skipping the first {@code offset}.
+     * Whole words before the offset are skipped by their bit count.
+     */
+    int[] toArray(int offset, int limit) {
+        int size = (int) Math.max(0, Math.min((long) cardinality() - offset, limit));
+        int[] bits = new int[size];
+        int n = 0;
+        int skip = offset;
+        for (int i = 0; i < words.length && n < size; i++) {
+            long word = words[i];
+            int count = Long.bitCount(word);
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            for (; skip > 0; skip--) {
+                word &= word - 1;
+            }
+            while (word != 0 && n < size) {
+                bits[n++] = (wordIndexes[i] << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
+import ru.yandex.practicum.filmorate.model.Completion;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class UserAutocompleteIndex {
+
+    public static final int MAX_COMPLETIONS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompletionTrie trie = new CompletionTrie(MAX_COMPLETIONS);
+    private final Map<Integer, String> logins = new HashMap<>();
+
+    public UserAutocompleteIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        log.debug("UserAutocompleteIndex: rebuilding from database");
+        Map<Integer, String> loadedLogins = new HashMap<>();
+        Map<Integer, Integer> friendCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT u.id, u.login, COUNT(uf.friend_id) AS friends " +
+                "FROM Users u " +
+                "LEFT JOIN user_friends uf ON u.id = uf.user_id " +
+                "GROUP BY u.id, u.login", rs -> {
+            loadedLogins.put(rs.getInt("id"), rs.getString("login"));
+            friendCounts.put(rs.getInt("id"), rs.getInt("friends"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            logins.clear();
+            logins.putAll(loadedLogins);
+            trie.load(loadedLogins, friendCounts);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("UserAutocompleteIndex: indexed {} user logins", loadedLogins.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSaved(UserSavedEvent event) {
+        User user = event.getUser();
+        lock.writeLock().lock();
+        try {
+            logins.put(user.getId(), user.getLogin());
+            trie.put(user.getId(), user.getLogin(), trie.getWeight(user.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            int friends = trie.getWeight(event.getUserId()) + (event.isAdded() ? 1 : -1);
+            trie.setWeight(event.getUserId(), Math.max(0, friends));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Completion> complete(String prefix, int count) {
+        lock.readLock().lock();
+        try {
+            return trie.complete(prefix, count).stream()
+                    .map(id -> new Completion(id, logins.get(id)))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
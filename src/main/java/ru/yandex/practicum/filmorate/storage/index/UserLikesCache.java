@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.config.ReadWriteRoutingDataSource;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Films liked by each user as ascending int arrays, read on first use through the
+ * film_likes_user_idx index and then kept current from like events. Only the {@code max-users}
+ * most recently used lists are kept. Lists are read from the primary, never the replica, and a
+ * list whose user's likes change while it is being read is returned but not cached, so a cached
+ * list never misses a committed like.
+ */
+@Slf4j
+@Component
+public class UserLikesCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Lock lock = new ReentrantLock();
+    private final Map<Integer, int[]> likes;
+    private final Map<Integer, Object> loading = new HashMap<>();
+
+    public UserLikesCache(JdbcTemplate jdbcTemplate,
+                          @Value("${filmorate.likes.user-cache.max-users:10000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.likes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        lock.lock();
+        try {
+            loading.remove(event.getUserId());
+            likes.computeIfPresent(event.getUserId(), (userId, filmIds) -> event.isAdded()
+                    ? SortedIntArrays.insert(filmIds, event.getFilmId())
+                    : SortedIntArrays.remove(filmIds, event.getFilmId()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikesChanged(LikesChangedEvent event) {
+        event.getChanges().forEach(this::onLikeChanged);
+    }
+
+    /**
+     * Films liked by both users, ascending. Gallops through the longer list when one user has
+     * liked far more films than the other.
+     */
+    public int[] getCommonLikedFilmIds(int userId1, int userId2) {
+        return SortedIntArrays.intersect(row(userId1), row(userId2));
+    }
+
+    private int[] row(int userId) {
+        Object marker = new Object();
+        lock.lock();
+        try {
+            int[] cached = likes.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            loading.put(userId, marker);
+        } finally {
+            lock.unlock();
+        }
+
+        int[] filmIds = ReadWriteRoutingDataSource.onPrimary(() -> jdbcTemplate.queryForList(
+                        "SELECT film_id FROM film_likes WHERE like_user_id = ? ORDER BY film_id", Integer.class, userId))
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        lock.lock();
+        try {
+            if (loading.remove(userId, marker)) {
+                likes.put(userId, filmIds);
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.debug("UserLikesCache: loaded {} liked films of user {}", filmIds.length, userId);
+        return filmIds;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bloom filters over existing logins and emails. A miss proves the value is free, so signup only
+ * pays for a uniqueness query on a possible hit. Filters are rebuilt with double capacity once full.
+ * Lookups read the current filters through a volatile reference and never wait: a rebuild scans
+ * Users without holding any lock, then swaps the new filters in and replays the users saved
+ * while it ran.
+ */
+@Slf4j
+@Component
+public class UserUniquenessFilter {
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double falsePositiveRate;
+    private final Lock rebuildLock = new ReentrantLock();
+    private final Queue<User> savedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private volatile Filters filters;
+    private volatile boolean rebuilding;
+
+    public UserUniquenessFilter(JdbcTemplate jdbcTemplate,
+                                @Value("${filmorate.users.bloom-false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuild(0);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public boolean mightContainLogin(String login) {
+        return login != null && filters.logins().mightContain(login);
+    }
+
+    public boolean mightContainEmail(String email) {
+        return email != null && filters.emails().mightContain(email);
+    }
+
+    /**
+     * A user saved while a rebuild runs is queued before it is added, so it reaches the new
+     * filters either through the rebuild's scan or through the replay after the swap.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSaved(UserSavedEvent event) {
+        if (rebuilding) {
+            savedDuringRebuild.add(event.getUser());
+        }
+        Filters current = filters;
+        current.add(event.getUser());
+        if (current.isFull() && rebuildLock.tryLock()) {
+            try {
+                if (filters == current) {
+                    rebuild(current.logins().capacity() * 2);
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        }
+    }
+
+    private void rebuild(int minCapacity) {
+        log.debug("UserUniquenessFilter: rebuilding from database");
+        savedDuringRebuild.clear();
+        rebuilding = true;
+        List<String[]> users = new ArrayList<>();
+        jdbcTemplate.query("SELECT login, email FROM Users",
+                rs -> {
+                    users.add(new String[]{rs.getString("login"), rs.getString("email")});
+                });
+
+        int capacity = Math.max(MIN_CAPACITY, Math.max(minCapacity, users.size() * 2));
+        Filters newFilters = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                new BloomFilter(capacity, falsePositiveRate));
+        for (String[] user : users) {
+            newFilters.logins().add(user[0]);
+            newFilters.emails().add(user[1]);
+        }
+        filters = newFilters;
+        rebuilding = false;
+        for (User user = savedDuringRebuild.poll(); user != null; user = savedDuringRebuild.poll()) {
+            newFilters.add(user);
+        }
+        log.info("UserUniquenessFilter: indexed {} users, capacity {}", users.size(), capacity);
+    }
+
+    private record Filters(BloomFilter logins, BloomFilter emails) {
+
+        void add(User user) {
+            logins.add(user.getLogin());
+            emails.add(user.getEmail());
+        }
+
+        boolean isFull() {
+            return logins.isFull() || emails.isFull();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.interfaces;
+
+import ru.yandex.practicum.filmorate.model.Change;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface ChangeLogStorage {
+    String getNodeId();
+
+    void record(Change.EntityType entityType, int entityId, Change.Operation operation, Integer relatedId);
+
+    List<Change> getChanges(long since, int limit);
+
+    List<Change> getRecentChanges(long after, int limit);
+
+    long getSeqBefore(Duration age);
+
+    long getHeadSeq();
+
+    long getPrunedSeq();
+
+    int compact();
+
+    int prune(Duration retention);
+}
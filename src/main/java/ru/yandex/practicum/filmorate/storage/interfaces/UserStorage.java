@@ -1,8 +1,10 @@
 package ru.yandex.practicum.filmorate.storage.interfaces;
 
+import ru.yandex.practicum.filmorate.model.FriendshipCheck;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -15,9 +17,19 @@ public interface UserStorage {
 
     Optional<User> getUserById(int id);
 
+    List<User> getUsersByIds(Collection<Integer> ids);
+
+    boolean existsById(int id);
+
+    FriendshipCheck checkFriendship(int userId, int friendId);
+
     Set<User> getCommonFriends(int userId1, int userId2);
 
     void removeFriend(int userId, int friendId);
 
     void addFriend(int userId, int friendId);
+
+    boolean existsByLogin(String login);
+
+    boolean existsByEmail(String email);
 }
\ No newline at end of file
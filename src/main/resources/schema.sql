@@ -13,7 +13,8 @@ CREATE TABLE IF NOT EXISTS Users (
     login VARCHAR(255) NOT NULL UNIQUE,
     email VARCHAR(255) NOT NULL UNIQUE,
     name VARCHAR(255),
-    birthday DATE NOT NULL
+    birthday DATE NOT NULL,
+    version INTEGER DEFAULT 0 NOT NULL
 );
 
 CREATE TABLE IF NOT EXISTS Films (
@@ -23,6 +24,7 @@ CREATE TABLE IF NOT EXISTS Films (
     releaseDate DATE NOT NULL CHECK (releaseDate >= '1895-12-28'),
     mpa_id INTEGER NOT NULL,
     duration INTEGER NOT NULL CHECK (duration > 0),
+    version INTEGER DEFAULT 0 NOT NULL,
     FOREIGN KEY (mpa_id) REFERENCES MPA(id)
 );
 
@@ -47,7 +49,35 @@ CREATE TABLE IF NOT EXISTS user_friends (
 CREATE TABLE IF NOT EXISTS film_likes (
     film_id INTEGER NOT NULL,
     like_user_id INTEGER NOT NULL,
+    liked_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL,
     PRIMARY KEY (film_id, like_user_id),
     FOREIGN KEY (film_id) REFERENCES Films(id) ON DELETE CASCADE,
     FOREIGN KEY (like_user_id) REFERENCES Users(id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS change_log (
+    seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id INTEGER NOT NULL,
+    operation VARCHAR(10) DEFAULT 'SAVE' NOT NULL,
+    related_id INTEGER,
+    node_id VARCHAR(64),
+    changed_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS change_log_entity_idx ON change_log (entity_type, entity_id);
+CREATE INDEX IF NOT EXISTS change_log_changed_at_idx ON change_log (changed_at);
+
+CREATE TABLE IF NOT EXISTS change_log_horizon (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    pruned_seq BIGINT NOT NULL
+);
+
+ALTER TABLE Users ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE Films ADD COLUMN IF NOT EXISTS version INTEGER DEFAULT 0 NOT NULL;
+ALTER TABLE change_log ADD COLUMN IF NOT EXISTS operation VARCHAR(10) DEFAULT 'SAVE' NOT NULL;
+ALTER TABLE change_log ADD COLUMN IF NOT EXISTS related_id INTEGER;
+ALTER TABLE change_log ADD COLUMN IF NOT EXISTS node_id VARCHAR(64);
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL;
+
+CREATE INDEX IF NOT EXISTS film_likes_user_idx ON film_likes (like_user_id, film_id);
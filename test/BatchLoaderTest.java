@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.storage.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.yandex.practicum.filmorate.config.ReadWriteRoutingDataSource;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+
+    /**
+     * A batch containing this id blocks until the gate opens, keeping the loader busy.
+     */
+    private static final int BLOCKING_ID = 0;
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final Map<List<Integer>, String> routes = new ConcurrentHashMap<>();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private BatchLoaders batchLoaders;
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        callers.close();
+        batchLoaders.shutdown();
+    }
+
+    @Test
+    @DisplayName("A lookup made while nothing runs is not held for the window")
+    void testLoneLookupRunsAtOnce() {
+        batchLoaders = new BatchLoaders(TimeUnit.SECONDS.toMicros(30), 100);
+        BatchLoader<String> loader = batchLoaders.create("test", this::load);
+
+        assertThat(loader.load(7)).contains("value-7");
+        assertThat(batches).containsExactly(List.of(7));
+    }
+
+    @Test
+    @DisplayName("Lookups arriving while a batch runs share one batch")
+    void testConcurrentLookupsAreBatched() throws Exception {
+        batchLoaders = new BatchLoaders(20_000, 1000);
+        BatchLoader<String> loader = batchLoaders.create("test", this::load);
+        Future<Optional<String>> blocker = callers.submit(() -> loader.load(BLOCKING_ID));
+        await(() -> batches.contains(List.of(BLOCKING_ID)));
+
+        List<Optional<String>> results = loadConcurrently(loader, IntStream.rangeClosed(1, 50).boxed().toList());
+        gate.countDown();
+
+        assertThat(results).containsExactlyElementsOf(
+                IntStream.rangeClosed(1, 50).mapToObj(id -> Optional.of("value-" + id)).toList());
+        assertThat(blocker.get(10, TimeUnit.SECONDS)).isEmpty();
+        assertThat(batches.size()).isLessThan(10);
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(51);
+        assertThat(loader.getBatchSizeHistogram().values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(batches.size());
+    }
+
+    @Test
+    @DisplayName("A full batch runs at once, and ids without a row load as empty")
+    void testMaxSizeAndMissingIds() throws Exception {
+        batchLoaders = new BatchLoaders(TimeUnit.SECONDS.toMicros(30), 4);
+        BatchLoader<String> loader = batchLoaders.create("test", this::load);
+        callers.submit(() -> loader.load(BLOCKING_ID));
+        await(() -> batches.contains(List.of(BLOCKING_ID)));
+
+        List<Optional<String>> results = loadConcurrently(loader, List.of(1, 2, -3, 4));
+
+        assertThat(results).containsExactly(Optional.of("value-1"), Optional.of("value-2"), Optional.empty(),
+                Optional.of("value-4"));
+        assertThat(batches).hasSize(2);
+        assertThat(loader.getBatchSizeHistogram()).containsExactly(Map.entry("1", 1L), Map.entry("4-7", 1L));
+    }
+
+    @Test
+    @DisplayName("Lookups are batched per route and each batch runs with its callers' route")
+    void testBatchesKeepTheirRoute() throws Exception {
+        batchLoaders = new BatchLoaders(TimeUnit.SECONDS.toMicros(30), 100);
+        BatchLoader<String> loader = batchLoaders.create("test", this::load);
+        callers.submit(() -> loader.load(BLOCKING_ID));
+        await(() -> batches.contains(List.of(BLOCKING_ID)));
+
+        List<Future<Optional<String>>> inRequest = IntStream.rangeClosed(1, 3)
+                .mapToObj(id -> callers.submit(() -> {
+                    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+                    return loader.load(id);
+                }))
+                .toList();
+        List<Future<Optional<String>>> background = IntStream.rangeClosed(4, 6)
+                .mapToObj(id -> callers.submit(() -> loader.load(id)))
+                .toList();
+        await(() -> loader.pendingCount() == 6);
+        gate.countDown();
+        for (Future<Optional<String>> future : inRequest) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).isPresent();
+        }
+        for (Future<Optional<String>> future : background) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).isPresent();
+        }
+
+        Map<String, Set<Integer>> idsByRoute = new HashMap<>();
+        routes.forEach((ids, route) -> idsByRoute.computeIfAbsent(route, key -> new TreeSet<>()).addAll(ids));
+        assertThat(batches).hasSize(3);
+        assertThat(idsByRoute).containsEntry("replica", Set.of(1, 2, 3)).containsEntry("primary", Set.of(0, 4, 5, 6));
+    }
+
+    @Test
+    @DisplayName("A failing batch fails its callers, and a window of 0 disables batching")
+    void testFailureAndDisabledBatching() {
+        batchLoaders = new BatchLoaders(0, 100);
+        BatchLoader<String> failing = batchLoaders.create("failing", ids -> {
+            throw new IllegalStateException("database down");
+        });
+        assertThatThrownBy(() -> failing.load(1)).isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+
+        BatchLoader<String> loader = batchLoaders.create("test", this::load);
+        assertThat(loader.load(7)).contains("value-7");
+        assertThat(batches).containsExactly(List.of(7));
+    }
+
+    private List<Optional<String>> loadConcurrently(BatchLoader<String> loader, List<Integer> ids) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<String>>> futures = ids.stream()
+                .map(id -> callers.submit(() -> {
+                    start.await();
+                    return loader.load(id);
+                }))
+                .toList();
+        start.countDown();
+        List<Optional<String>> results = new ArrayList<>();
+        for (Future<Optional<String>> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private Map<Integer, String> load(Collection<Integer> ids) {
+        List<Integer> batch = List.copyOf(ids);
+        batches.add(batch);
+        routes.put(batch, ReadWriteRoutingDataSource.currentRoute());
+        if (ids.contains(BLOCKING_ID)) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ids.stream().filter(id -> id > 0).collect(Collectors.toMap(id -> id, id -> "value-" + id));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.ChangeReplay;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikesChangedEvent;
+import ru.yandex.practicum.filmorate.model.Change;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoaders;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@JdbcTest(properties = {"filmorate.changes.gap-timeout-ms=0", "filmorate.changes.compaction-grace-ms=0"})
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({ChangeLogDbStorage.class, UserDbStorage.class, BatchLoaders.class})
+class ChangeLogDbStorageTest {
+
+    private final ChangeLogDbStorage changeLogStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Repeated changes of an entity are returned once, at their latest position")
+    void testChangesAreCompactedOnRead() {
+        long start = changeLogStorage.getHeadSeq();
+        changeLogStorage.record(Change.EntityType.FILM, 1, Change.Operation.SAVE, null);
+        changeLogStorage.record(Change.EntityType.USER, 1, Change.Operation.SAVE, null);
+        changeLogStorage.record(Change.EntityType.FILM, 1, Change.Operation.SAVE, null);
+
+        List<Change> changes = changeLogStorage.getChanges(start, 10);
+
+        assertThat(changes).extracting(Change::getEntityType, Change::getEntityId)
+                .containsExactly(
+                        tuple(Change.EntityType.USER, 1),
+                        tuple(Change.EntityType.FILM, 1));
+        assertThat(changes.get(1).getSeq()).isEqualTo(changeLogStorage.getHeadSeq());
+        assertThat(changeLogStorage.getChanges(changes.get(0).getSeq(), 10)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Writes record their changes in the same transaction")
+    void testWritesRecordChanges() {
+        long start = changeLogStorage.getHeadSeq();
+        User first = userStorage.addUser(user("first"));
+        User second = userStorage.addUser(user("second"));
+        userStorage.addFriend(first.getId(), second.getId());
+
+        assertThat(changeLogStorage.getChanges(start, 10))
+                .extracting(Change::getEntityType, Change::getEntityId)
+                .containsExactly(
+                        tuple(Change.EntityType.USER, first.getId()),
+                        tuple(Change.EntityType.USER, second.getId()),
+                        tuple(Change.EntityType.FRIENDS, first.getId()));
+    }
+
+    @Test
+    @DisplayName("Compaction drops superseded rows and pruning moves the horizon")
+    void testCompactAndPrune() {
+        changeLogStorage.record(Change.EntityType.FILM, 7, Change.Operation.SAVE, null);
+        changeLogStorage.record(Change.EntityType.FILM, 7, Change.Operation.SAVE, null);
+        changeLogStorage.record(Change.EntityType.FILM, 8, Change.Operation.SAVE, null);
+
+        assertThat(changeLogStorage.compact()).isEqualTo(1);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log WHERE entity_id IN (7, 8)", Integer.class);
+        assertThat(rows).isEqualTo(2);
+
+        long head = changeLogStorage.getHeadSeq();
+        assertThat(changeLogStorage.prune(Duration.ZERO)).isPositive();
+        assertThat(changeLogStorage.getPrunedSeq()).isEqualTo(head);
+        assertThat(changeLogStorage.getChanges(0, 10)).isEmpty();
+        assertThat(changeLogStorage.getHeadSeq()).isEqualTo(head);
+    }
+
+    @Test
+    @DisplayName("The feed stops before a fresh sequence gap until the missing row commits")
+    void testFeedWaitsForOpenGap() {
+        ChangeLogDbStorage waiting = new ChangeLogDbStorage(jdbcTemplate, 60000, 0, "waiting");
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM change_log", Long.class);
+        long base = (max != null ? max : 0) + 1000;
+        jdbcTemplate.update("INSERT INTO change_log (seq, entity_type, entity_id, changed_at) " +
+                "VALUES (?, 'FILM', 1, DATEADD(HOUR, -1, LOCALTIMESTAMP))", base);
+        insertAt(base + 1, 2);
+        insertAt(base + 3, 3);
+
+        assertThat(waiting.getChanges(base, 10)).extracting(Change::getEntityId).containsExactly(2);
+        assertThat(waiting.getHeadSeq()).isEqualTo(base + 1);
+
+        insertAt(base + 2, 4);
+
+        assertThat(waiting.getChanges(base + 1, 10)).extracting(Change::getEntityId).containsExactly(4, 3);
+        assertThat(waiting.getHeadSeq()).isEqualTo(base + 3);
+    }
+
+    @Test
+    @DisplayName("Replayed changes of other nodes are not logged again")
+    void testReplaysAreNotLogged() {
+        long start = changeLogStorage.getHeadSeq();
+        ChangeReplay.run(() -> changeLogStorage.record(Change.EntityType.FILM, 9, Change.Operation.SAVE, null));
+        changeLogStorage.record(Change.EntityType.FILM, 10, Change.Operation.SAVE, null);
+
+        assertThat(changeLogStorage.getChanges(start, 10)).extracting(Change::getEntityId).containsExactly(10);
+    }
+
+    @Test
+    @DisplayName("A batch of like changes is logged row by row")
+    void testLikeBatchIsLogged() {
+        long start = changeLogStorage.getHeadSeq();
+        changeLogStorage.onLikesChanged(new LikesChangedEvent(List.of(
+                new LikeChangedEvent(1, 2, true),
+                new LikeChangedEvent(3, 2, false))));
+
+        assertThat(changeLogStorage.getRecentChanges(start, 10))
+                .extracting(Change::getEntityId, Change::getOperation, Change::getRelatedId)
+                .containsExactly(
+                        tuple(1, Change.Operation.ADD, 2),
+                        tuple(3, Change.Operation.REMOVE, 2));
+    }
+
+    private void insertAt(long seq, int filmId) {
+        jdbcTemplate.update("INSERT INTO change_log (seq, entity_type, entity_id) VALUES (?, 'FILM', ?)", seq, filmId);
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@example.com");
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
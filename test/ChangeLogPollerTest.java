@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.services;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipGraph;
+
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two application contexts on one H2 server-mode database, standing in for two nodes behind a
+ * load balancer.
+ */
+class ChangeLogPollerTest {
+
+    private static final long STALENESS_BOUND_MS = 2000;
+
+    private static Server server;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:shared;DB_CLOSE_DELAY=-1";
+        nodeA = startNode(url, "node-a");
+        nodeB = startNode(url, "node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Likes and friendships made on one node reach the indexes of the other")
+    void testChangesReachOtherNode() {
+        FilmService filmsOnA = nodeA.getBean(FilmService.class);
+        UserService usersOnA = nodeA.getBean(UserService.class);
+        FilmPopularityIndex popularityOnB = nodeB.getBean(FilmPopularityIndex.class);
+        FriendshipGraph friendsOnB = nodeB.getBean(FriendshipGraph.class);
+
+        User alice = usersOnA.addUser(user("alice"));
+        User bob = usersOnA.addUser(user("bob"));
+        Film film = filmsOnA.create(film("Arrival"));
+        awaitOnB(() -> nodeB.getBean(FilmService.class).autocompleteFilms("arr", 10).stream()
+                .anyMatch(completion -> completion.getId() == film.getId()));
+
+        filmsOnA.addLike(film.getId(), alice.getId());
+        filmsOnA.addLike(film.getId(), bob.getId());
+        usersOnA.addFriend(alice.getId(), bob.getId());
+
+        awaitOnB(() -> popularityOnB.getLikeCount(film.getId()) == 2);
+        awaitOnB(() -> friendsOnB.getFriendIds(alice.getId()).length == 1);
+        assertThat(nodeB.getBean(FilmService.class).getTopFilms(1)).extracting(Film::getId).containsExactly(film.getId());
+
+        filmsOnA.deleteLike(film.getId(), bob.getId());
+        awaitOnB(() -> popularityOnB.getLikeCount(film.getId()) == 1);
+        assertThat(nodeA.getBean(FilmPopularityIndex.class).getLikeCount(film.getId())).isEqualTo(1);
+    }
+
+    private static void awaitOnB(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + STALENESS_BOUND_MS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("node B caught up within %d ms", STALENESS_BOUND_MS)
+                    .isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String url, String nodeId) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "filmorate.node-id=" + nodeId,
+                        "filmorate.changes.poll-ms=50")
+                .run();
+    }
+
+    private static User user(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@example.com");
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Linguist meets visitors")
+                .releaseDate(LocalDate.of(2016, 11, 11))
+                .duration(116)
+                .mpa(new MPA(3, "PG-13"))
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompletionTrieTest {
+
+    private CompletionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new CompletionTrie(2);
+        trie.load(Map.of(1, "Matrix", 2, "Mask", 3, "Madagascar", 4, "Ёлки"),
+                Map.of(1, 5, 2, 1, 3, 3));
+    }
+
+    @Test
+    @DisplayName("Completions are ranked by weight and capped per node")
+    void testCompleteRanksByWeight() {
+        assertThat(trie.complete("ma", 10)).containsExactly(1, 3);
+        assertThat(trie.complete("MAS", 10)).containsExactly(2);
+        assertThat(trie.complete("елк", 10)).containsExactly(4);
+        assertThat(trie.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Weight changes and renames refresh cached completions")
+    void testUpdatesRefreshCompletions() {
+        trie.setWeight(2, 10);
+        assertThat(trie.complete("ma", 10)).containsExactly(2, 1);
+
+        trie.setWeight(2, 0);
+        assertThat(trie.complete("ma", 10)).containsExactly(1, 3);
+
+        trie.put(1, "Terminator", 5);
+        assertThat(trie.complete("ma", 10)).containsExactly(3, 2);
+        assertThat(trie.complete("term", 10)).containsExactly(1);
+
+        trie.remove(3);
+        assertThat(trie.complete("ma", 10)).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Removing keys prunes the branches they leave empty")
+    void testRemovePrunesEmptyBranches() {
+        int loaded = trie.nodeCount();
+        trie.put(5, "Maskarad", 0);
+        trie.put(5, "Mask", 0);
+        assertThat(trie.nodeCount()).isEqualTo(loaded);
+
+        trie.remove(5);
+        trie.remove(2);
+        assertThat(trie.nodeCount()).isEqualTo(loaded - 2);
+        assertThat(trie.complete("mas", 10)).isEmpty();
+
+        for (int id = 1; id <= 4; id++) {
+            trie.remove(id);
+        }
+        assertThat(trie.nodeCount()).isEqualTo(1);
+        assertThat(trie.complete("", 10)).isEmpty();
+    }
+}
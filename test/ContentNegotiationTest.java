@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.services.FilmService;
+import ru.yandex.practicum.filmorate.services.LikeStreamService;
+import ru.yandex.practicum.filmorate.services.MultiGetService;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FilmController.class)
+class ContentNegotiationTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private FilmService filmService;
+
+    @MockitoBean
+    private LikeStreamService likeStreamService;
+
+    @MockitoBean
+    private MultiGetService multiGetService;
+
+    @Test
+    @DisplayName("Films are served as CBOR, Smile or JSON depending on Accept")
+    void testResponseNegotiation() throws Exception {
+        Film film = film(1, 3);
+        when(filmService.getFilmById(1)).thenReturn(Optional.of(film));
+
+        MvcResult cbor = mockMvc.perform(get("/films/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+        assertThat(cborMapper.readValue(cbor.getResponse().getContentAsByteArray(), Film.class)).isEqualTo(film);
+
+        MvcResult smile = mockMvc.perform(get("/films/1").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+        assertThat(smileMapper.readValue(smile.getResponse().getContentAsByteArray(), Film.class)).isEqualTo(film);
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("Request bodies are accepted as CBOR")
+    void testCborRequestBody() throws Exception {
+        Film film = film(0, 0);
+        when(filmService.create(any(Film.class))).thenAnswer(invocation -> {
+            Film created = invocation.getArgument(0);
+            created.setId(7);
+            return created;
+        });
+
+        MvcResult result = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cborMapper.writeValueAsBytes(film)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Film created = cborMapper.readValue(result.getResponse().getContentAsByteArray(), Film.class);
+        assertThat(created.getId()).isEqualTo(7);
+        assertThat(created.getName()).isEqualTo(film.getName());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.benchmark", matches = "true")
+    @DisplayName("Benchmark: payload size and serialization time of JSON, CBOR and Smile")
+    void benchmarkFormats() throws Exception {
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", cborMapper);
+        mappers.put("smile", smileMapper);
+
+        for (int likes : new int[]{20, 10_000}) {
+            Film film = film(1, likes);
+            for (Map.Entry<String, ObjectMapper> format : mappers.entrySet()) {
+                ObjectMapper mapper = format.getValue();
+                byte[] payload = mapper.writeValueAsBytes(film);
+                int iterations = likes > 1000 ? 200 : 50_000;
+                for (int i = 0; i < iterations; i++) {
+                    mapper.readValue(mapper.writeValueAsBytes(film), Film.class);
+                }
+                long started = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    mapper.writeValueAsBytes(film);
+                }
+                long writeNanos = (System.nanoTime() - started) / iterations;
+                started = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    mapper.readValue(payload, Film.class);
+                }
+                long readNanos = (System.nanoTime() - started) / iterations;
+                System.out.printf("%6d likes %-5s %8d bytes, write %8d ns, read %8d ns%n",
+                        likes, format.getKey(), payload.length, writeNanos, readNanos);
+            }
+        }
+    }
+
+    private static Film film(int id, int likes) {
+        Set<User> likedBy = new HashSet<>();
+        for (int userId = 1; userId <= likes; userId++) {
+            User user = new User();
+            user.setId(userId);
+            likedBy.add(user);
+        }
+        return Film.builder()
+                .id(id)
+                .name("The Matrix")
+                .description("A computer hacker learns about the true nature of reality")
+                .releaseDate(LocalDate.of(1999, 3, 31))
+                .duration(136)
+                .mpa(new MPA(4, "R"))
+                .genres(new ArrayList<>(List.of(new Genre(4, "Thriller"), new Genre(6, "Action"))))
+                .likes(likedBy)
+                .build();
+    }
+}
@@ -12,8 +12,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikePair;
 import ru.yandex.practicum.filmorate.model.MPA;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoaders;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -24,7 +26,7 @@ import static org.assertj.core.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmDbStorage.class, GenreDbStorage.class, MpaDbStorage.class})
+@Import({FilmDbStorage.class, GenreDbStorage.class, MpaDbStorage.class, BatchLoaders.class})
 class FilmDbStorageTest {
 
     private final FilmDbStorage filmStorage;
@@ -604,4 +606,26 @@ class FilmDbStorageTest {
         List<Film> topFilms = filmStorage.getTopFilms(0);
         assertThat(topFilms).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Batch like and unlike report which pairs changed")
+    void testAddAndRemoveLikesBatch() {
+        int filmId1 = insertFilm(createTestFilmWithFullObjects("Batch 1", "Desc", LocalDate.of(2000, 1, 1), 100, 1, null));
+        int filmId2 = insertFilm(createTestFilmWithFullObjects("Batch 2", "Desc", LocalDate.of(2001, 1, 1), 100, 1, null));
+        int userId1 = insertUser(createTestUser("batch1@example.com", "batch1", "Batch One", LocalDate.of(1990, 1, 1)));
+        int userId2 = insertUser(createTestUser("batch2@example.com", "batch2", "Batch Two", LocalDate.of(1990, 1, 1)));
+        filmStorage.addLike(filmId1, userId1);
+
+        List<LikePair> added = filmStorage.addLikes(List.of(
+                new LikePair(filmId1, userId1), new LikePair(filmId1, userId2), new LikePair(filmId2, userId1)));
+        assertThat(added).containsExactly(new LikePair(filmId1, userId2), new LikePair(filmId2, userId1));
+        assertThat(filmStorage.getFilmById(filmId1).orElseThrow().getLikes()).extracting(User::getId)
+                .containsExactlyInAnyOrder(userId1, userId2);
+
+        List<LikePair> removed = filmStorage.removeLikes(List.of(
+                new LikePair(filmId1, userId2), new LikePair(filmId2, userId2)));
+        assertThat(removed).containsExactly(new LikePair(filmId1, userId2));
+        assertThat(filmStorage.getExistingFilmIds(List.of(filmId1, filmId2, 9999)))
+                .containsExactlyInAnyOrder(filmId1, filmId2);
+    }
+}
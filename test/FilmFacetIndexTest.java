@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmFacetIndex.class})
+class FilmFacetIndexTest {
+
+    private final FilmFacetIndex facetIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int insertFilm(String name, int year, int mpaId, List<Integer> genreIds) {
+        jdbcTemplate.update("INSERT INTO Films (name, description, releaseDate, mpa_id, duration) VALUES (?, ?, ?, ?, ?)",
+                name, "Описание", LocalDate.of(year, 1, 1), mpaId, 100);
+        int filmId = jdbcTemplate.queryForObject("SELECT id FROM Films WHERE name = ? ORDER BY id DESC LIMIT 1", Integer.class, name);
+        genreIds.forEach(genreId -> jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, genreId));
+        return filmId;
+    }
+
+    @Test
+    @DisplayName("Facets are ORed within and ANDed across, counts ignore their own facet's filter")
+    void testFiltersAndCounts() {
+        int comedy2000 = insertFilm("Комедия 2000", 2000, 1, List.of(1));
+        int drama2000 = insertFilm("Драма 2000", 2000, 2, List.of(2));
+        int comedyDrama2010 = insertFilm("Комедия-драма 2010", 2010, 1, List.of(1, 2));
+        int cartoon2020 = insertFilm("Мультфильм 2020", 2020, 1, List.of(3));
+        facetIndex.rebuild();
+
+        FilmFacetIndex.Selection all = facetIndex.select(Set.of(), Set.of(), null, null, 0, 10);
+        assertThat(all.filmIds()).containsExactly(comedy2000, drama2000, comedyDrama2010, cartoon2020);
+        assertThat(all.genreCounts()).isEqualTo(Map.of(1, 2, 2, 2, 3, 1));
+        assertThat(all.yearCounts()).containsExactly(Map.entry(2000, 2), Map.entry(2010, 1), Map.entry(2020, 1));
+
+        FilmFacetIndex.Selection comedies = facetIndex.select(Set.of(1), Set.of(1), 2000, 2015, 0, 10);
+        assertThat(comedies.filmIds()).containsExactly(comedy2000, comedyDrama2010);
+        assertThat(comedies.total()).isEqualTo(2);
+        assertThat(comedies.genreCounts()).isEqualTo(Map.of(1, 2, 2, 1));
+        assertThat(comedies.mpaCounts()).isEqualTo(Map.of(1, 2));
+        assertThat(comedies.yearCounts()).isEqualTo(Map.of(2000, 1, 2010, 1));
+
+        FilmFacetIndex.Selection comediesOrDramas = facetIndex.select(Set.of(1, 2), Set.of(), null, 2010, 1, 1);
+        assertThat(comediesOrDramas.filmIds()).containsExactly(drama2000);
+        assertThat(comediesOrDramas.total()).isEqualTo(3);
+        assertThat(facetIndex.select(Set.of(99), Set.of(), null, null, 0, 10).total()).isZero();
+        assertThat(facetIndex.select(Set.of(), Set.of(), null, null, 10, 10).filmIds()).isEmpty();
+        assertThat(facetIndex.getGenreName(1)).isEqualTo("Комедия");
+        assertThat(facetIndex.getMpaName(3)).isEqualTo("PG-13");
+    }
+
+    @Test
+    @DisplayName("Saved films move between the bitmaps of their old and new values")
+    void testFilmSaved() {
+        int film = insertFilm("Фильм", 2001, 1, List.of(1));
+        facetIndex.rebuild();
+
+        Film updated = new Film(film, "Фильм", "Описание", LocalDate.of(2005, 1, 1),
+                new ArrayList<>(List.of(new Genre(2, "Драма"))), new MPA(3, "PG-13"), 100, null, new HashSet<>());
+        facetIndex.onFilmSaved(new FilmSavedEvent(updated));
+        Film added = new Film(film + 1, "Новый", "Описание", LocalDate.of(2005, 1, 1),
+                new ArrayList<>(), new MPA(3, "PG-13"), 100, null, new HashSet<>());
+        facetIndex.onFilmSaved(new FilmSavedEvent(added));
+
+        assertThat(facetIndex.select(Set.of(1), Set.of(), null, null, 0, 10).total()).isZero();
+        assertThat(facetIndex.select(Set.of(2), Set.of(3), 2005, 2005, 0, 10).filmIds()).containsExactly(film);
+        FilmFacetIndex.Selection pg13 = facetIndex.select(Set.of(), Set.of(3), null, null, 0, 10);
+        assertThat(pg13.filmIds()).containsExactly(film, film + 1);
+        assertThat(pg13.genreCounts()).isEqualTo(Map.of(2, 1));
+        assertThat(pg13.yearCounts()).isEqualTo(Map.of(2005, 2));
+    }
+}
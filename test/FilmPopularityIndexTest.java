@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmPopularityIndex.class})
+class FilmPopularityIndexTest {
+
+    private final FilmPopularityIndex popularityIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int insertFilm(String name, int year, int mpaId, List<Integer> genreIds) {
+        jdbcTemplate.update("INSERT INTO Films (name, description, releaseDate, mpa_id, duration) VALUES (?, ?, ?, ?, ?)",
+                name, "Описание", LocalDate.of(year, 1, 1), mpaId, 100);
+        int filmId = jdbcTemplate.queryForObject("SELECT id FROM Films WHERE name = ? ORDER BY id DESC LIMIT 1", Integer.class, name);
+        genreIds.forEach(genreId -> jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, genreId));
+        return filmId;
+    }
+
+    private int insertUser(String login) {
+        jdbcTemplate.update("INSERT INTO Users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM Users WHERE login = ?", Integer.class, login);
+    }
+
+    private void insertLike(int filmId, int userId) {
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, like_user_id) VALUES (?, ?)", filmId, userId);
+    }
+
+    @Test
+    @DisplayName("Filtered top films are ranked by likes within genre, MPA and year")
+    void testFilteredTopFilms() {
+        int comedy2000 = insertFilm("Комедия 2000", 2000, 1, List.of(1));
+        int drama2000 = insertFilm("Драма 2000", 2000, 2, List.of(2));
+        int comedyDrama2010 = insertFilm("Комедия-драма 2010", 2010, 1, List.of(1, 2));
+        int user1 = insertUser("pop_user1");
+        int user2 = insertUser("pop_user2");
+        insertLike(comedyDrama2010, user1);
+        insertLike(comedyDrama2010, user2);
+        insertLike(drama2000, user1);
+
+        popularityIndex.rebuild();
+
+        assertThat(popularityIndex.getTopFilmIds(10, 1, null, null)).containsExactly(comedyDrama2010, comedy2000);
+        assertThat(popularityIndex.getTopFilmIds(10, 2, null, null)).containsExactly(comedyDrama2010, drama2000);
+        assertThat(popularityIndex.getTopFilmIds(10, null, null, 2000)).containsExactly(drama2000, comedy2000);
+        assertThat(popularityIndex.getTopFilmIds(10, 1, 1, 2000)).containsExactly(comedy2000);
+        assertThat(popularityIndex.getTopFilmIds(1, 2, null, null)).containsExactly(comedyDrama2010);
+        assertThat(popularityIndex.getTopFilmIds(10, 3, null, null)).isEmpty();
+        assertThat(popularityIndex.rankFilmIds(new int[]{comedy2000, drama2000, comedyDrama2010, 999_999}, 10))
+                .containsExactly(comedyDrama2010, drama2000, comedy2000);
+        assertThat(popularityIndex.rankFilmIds(new int[]{comedy2000, comedyDrama2010}, 1))
+                .containsExactly(comedyDrama2010);
+    }
+
+    @Test
+    @DisplayName("Like and film update events reorder the index")
+    void testIncrementalUpdates() {
+        int first = insertFilm("Первый", 2001, 1, List.of(1));
+        int second = insertFilm("Второй", 2001, 1, List.of(1));
+        int userId = insertUser("pop_user3");
+        popularityIndex.rebuild();
+
+        assertThat(popularityIndex.getTopFilmIds(2, 1, null, null)).containsExactly(first, second);
+
+        popularityIndex.onLikeChanged(new LikeChangedEvent(second, userId, true));
+        assertThat(popularityIndex.getTopFilmIds(2, 1, null, null)).containsExactly(second, first);
+        assertThat(popularityIndex.getLikeCount(second)).isEqualTo(1);
+
+        Film movedToDrama = new Film(second, "Второй", "Описание", LocalDate.of(2001, 1, 1),
+                new ArrayList<>(List.of(new Genre(2, "Драма"))), new MPA(1, "G"), 100, null, new HashSet<>());
+        popularityIndex.onFilmSaved(new FilmSavedEvent(movedToDrama));
+        assertThat(popularityIndex.getTopFilmIds(2, 1, null, null)).containsExactly(first);
+        assertThat(popularityIndex.getTopFilmIds(2, 2, null, null)).containsExactly(second);
+
+        popularityIndex.onLikeChanged(new LikeChangedEvent(second, userId, false));
+        assertThat(popularityIndex.getLikeCount(second)).isZero();
+    }
+}
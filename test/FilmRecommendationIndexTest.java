@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmRecommendationIndexTest {
+
+    private FilmRecommendationIndex recommendationIndex;
+
+    @BeforeEach
+    void setUp() {
+        recommendationIndex = new FilmRecommendationIndex(null, 2, 1000, 2);
+        like(1, 10, 11, 12);
+        like(2, 10, 11, 12, 13, 14);
+        like(3, 10, 11, 15);
+        like(4, 10, 16);
+        like(5, 20, 21);
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommendationIndex.shutdown();
+    }
+
+    @Test
+    @DisplayName("Films of the closest neighbours are recommended, weighted by overlap")
+    void testRecommendsFromClosestNeighbours() {
+        assertThat(recommendationIndex.getRecommendedFilmIds(1, 10)).containsExactly(13, 14, 15);
+        assertThat(recommendationIndex.getRecommendedFilmIds(1, 1)).containsExactly(13);
+        assertThat(recommendationIndex.getRecommendedFilmIds(5, 10)).isEmpty();
+        assertThat(recommendationIndex.getRecommendedFilmIds(99, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Like changes are reflected in recommendations")
+    void testLikeChanges() {
+        recommendationIndex.onLikeChanged(new LikeChangedEvent(13, 1, true));
+        assertThat(recommendationIndex.getRecommendedFilmIds(1, 10)).containsExactly(14, 15);
+
+        recommendationIndex.onLikeChanged(new LikeChangedEvent(10, 2, false));
+        recommendationIndex.onLikeChanged(new LikeChangedEvent(11, 2, false));
+        recommendationIndex.onLikeChanged(new LikeChangedEvent(12, 2, false));
+        assertThat(recommendationIndex.getRecommendedFilmIds(1, 10)).containsExactly(15, 14);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "filmorate.benchmark", matches = "true")
+    @DisplayName("Benchmark: 1M users, 100k films")
+    void benchmarkMillionUsers() {
+        int users = 1_000_000;
+        int films = 100_000;
+        Random random = new Random(42);
+        SparseBitSet[] likes = new SparseBitSet[users + 1];
+        for (int userId = 1; userId <= users; userId++) {
+            int[] liked = new int[5 + random.nextInt(40)];
+            for (int i = 0; i < liked.length; i++) {
+                // skew towards the head of the catalog, as real like distributions are
+                liked[i] = 1 + (int) (films * Math.pow(random.nextDouble(), 3));
+            }
+            Arrays.sort(liked);
+            likes[userId] = SparseBitSet.of(liked);
+        }
+        recommendationIndex.shutdown();
+        recommendationIndex = new FilmRecommendationIndex(null, 10, 200, 0);
+        recommendationIndex.load(likes);
+
+        for (int i = 0; i < 5; i++) {
+            recommendationIndex.getRecommendedFilmIds(1 + random.nextInt(users), 10);
+        }
+        int runs = 50;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            assertThat(recommendationIndex.getRecommendedFilmIds(1 + random.nextInt(users), 10)).isNotEmpty();
+        }
+        long averageMs = (System.nanoTime() - started) / runs / 1_000_000;
+        System.out.printf("FilmRecommendationIndex: %d users, %d films, %d ms per request%n", users, films, averageMs);
+        assertThat(averageMs).isLessThanOrEqualTo(200);
+    }
+
+    private void like(int userId, int... filmIds) {
+        for (int filmId : filmIds) {
+            recommendationIndex.onLikeChanged(new LikeChangedEvent(filmId, userId, true));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmSearchIndex.class})
+class FilmSearchIndexTest {
+
+    private final FilmSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int insertFilm(String name, String description) {
+        jdbcTemplate.update("INSERT INTO Films (name, description, releaseDate, mpa_id, duration) VALUES (?, ?, ?, ?, ?)",
+                name, description, LocalDate.of(2000, 1, 1), 1, 100);
+        return jdbcTemplate.queryForObject("SELECT id FROM Films WHERE name = ? ORDER BY id DESC LIMIT 1", Integer.class, name);
+    }
+
+    @Test
+    @DisplayName("Tokenizer lowercases Russian and English text and splits on punctuation")
+    void testTokenize() {
+        assertThat(FilmSearchIndex.tokenize("Ёлки-2: Новый ГОД, New Year!"))
+                .containsExactly("елки", "2", "новый", "год", "new", "year");
+    }
+
+    @Test
+    @DisplayName("Search matches prefixes and ranks name hits above description hits")
+    void testSearchRanking() {
+        int inName = insertFilm("Матрица", "Фантастика о виртуальной реальности");
+        int inDescription = insertFilm("Тёмный город", "Почти как Матрица, только темнее");
+        insertFilm("Иван Васильевич", "Комедия");
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search("матрица", 10)).containsExactly(inName, inDescription);
+        assertThat(searchIndex.search("матр", 10)).containsExactly(inName, inDescription);
+        assertThat(searchIndex.search("темн город", 10)).containsExactly(inDescription);
+        assertThat(searchIndex.search("матрица", 1)).containsExactly(inName);
+        assertThat(searchIndex.search("терминатор", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Film updates replace previously indexed terms")
+    void testUpdateReplacesTerms() {
+        int filmId = insertFilm("Old Title", "Something");
+        searchIndex.rebuild();
+        assertThat(searchIndex.search("old", 10)).containsExactly(filmId);
+
+        Film renamed = Film.builder().id(filmId).name("New Title").description("Something")
+                .releaseDate(LocalDate.of(2000, 1, 1)).mpa(new MPA(1, "G")).duration(100).build();
+        searchIndex.onFilmSaved(new FilmSavedEvent(renamed));
+
+        assertThat(searchIndex.search("old", 10)).isEmpty();
+        assertThat(searchIndex.search("new title", 10)).containsExactly(filmId);
+    }
+}
@@ -10,7 +10,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOutcome;
+import ru.yandex.practicum.filmorate.model.LikePair;
 import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
 import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.interfaces.GenreStorage;
@@ -21,7 +24,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
@@ -130,4 +135,32 @@ class FilmServiceTest {
         verify(mockGenreStorage, times(1)).getGenreById(validGenre1.getId());
         verify(mockGenreStorage, times(1)).getGenreById(invalidGenre.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Batch like gives every pair its own outcome")
+    void testAddLikesOutcomes() {
+        LikePair added = new LikePair(1, 10);
+        LikePair alreadyLiked = new LikePair(1, 11);
+        LikePair unknownFilm = new LikePair(99, 10);
+        LikePair unknownUser = new LikePair(1, 99);
+        User user10 = new User();
+        user10.setId(10);
+        User user11 = new User();
+        user11.setId(11);
+
+        when(mockFilmDbStorage.getExistingFilmIds(any())).thenReturn(Set.of(1));
+        when(mockUserStorage.getUsersByIds(any())).thenReturn(List.of(user10, user11));
+        when(mockFilmDbStorage.addLikes(List.of(added, alreadyLiked))).thenReturn(List.of(added));
+
+        List<LikeOutcome> outcomes = filmService.addLikes(List.of(added, alreadyLiked, unknownFilm, unknownUser, added));
+
+        assertThat(outcomes).extracting(LikeOutcome::getStatus).containsExactly(
+                LikeOutcome.Status.ADDED,
+                LikeOutcome.Status.ALREADY_LIKED,
+                LikeOutcome.Status.FILM_NOT_FOUND,
+                LikeOutcome.Status.USER_NOT_FOUND,
+                LikeOutcome.Status.ALREADY_LIKED);
+        verify(mockFilmDbStorage, times(1)).addLikes(anyList());
+    }
+}
+
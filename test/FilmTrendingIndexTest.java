@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FilmTrendingIndexTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private FilmTrendingIndex trendingIndex;
+
+    @BeforeEach
+    void setUp() {
+        trendingIndex = new FilmTrendingIndex(null, 1);
+    }
+
+    @Test
+    @DisplayName("Recent likes outrank a larger number of old ones")
+    void testRecentLikesOutrankOldOnes() {
+        like(1, 1, now.minusHours(2));
+        like(1, 2, now.minusHours(2));
+        like(1, 3, now.minusHours(2));
+        like(2, 1, now);
+
+        assertThat(trendingIndex.getTrendingFilmIds(10)).containsExactly(2, 1);
+        assertThat(trendingIndex.getScore(1, now)).isCloseTo(0.75, within(1e-9));
+        assertThat(trendingIndex.getScore(2, now.plusHours(1))).isCloseTo(0.5, within(1e-9));
+        assertThat(trendingIndex.getTrendingFilmIds(1)).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("Unliking removes exactly the like's own contribution")
+    void testUnlikeRemovesContribution() {
+        like(1, 1, now.minusHours(1));
+        like(1, 2, now);
+        like(2, 1, now.minusMinutes(30));
+
+        trendingIndex.onLikeChanged(new LikeChangedEvent(1, 2, false, now));
+        assertThat(trendingIndex.getScore(1, now)).isCloseTo(0.5, within(1e-9));
+        assertThat(trendingIndex.getTrendingFilmIds(10)).containsExactly(2, 1);
+
+        trendingIndex.onLikeChanged(new LikeChangedEvent(1, 1, false, now.minusHours(1)));
+        assertThat(trendingIndex.getTrendingFilmIds(10)).containsExactly(2);
+        assertThat(trendingIndex.getScore(1, now)).isZero();
+    }
+
+    @Test
+    @DisplayName("Moving the decay epoch keeps scores and ranking")
+    void testEpochRebase() {
+        LocalDateTime later = now.plusHours(1000);
+        like(1, 1, later.minusHours(1));
+        like(1, 2, later.minusHours(1));
+        like(2, 1, later);
+
+        assertThat(trendingIndex.getTrendingFilmIds(10)).containsExactly(1, 2);
+        assertThat(trendingIndex.getScore(1, later)).isCloseTo(1.0, within(1e-9));
+        assertThat(trendingIndex.getScore(2, later)).isCloseTo(1.0, within(1e-9));
+    }
+
+    private void like(int filmId, int userId, LocalDateTime likedAt) {
+        trendingIndex.onLikeChanged(new LikeChangedEvent(filmId, userId, true, likedAt));
+    }
+}
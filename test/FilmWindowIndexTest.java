@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.model.PopularityWindow.DAY;
+import static ru.yandex.practicum.filmorate.model.PopularityWindow.HOUR;
+import static ru.yandex.practicum.filmorate.model.PopularityWindow.WEEK;
+
+class FilmWindowIndexTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-02T12:30:00Z"));
+    private FilmWindowIndex windowIndex;
+
+    @BeforeEach
+    void setUp() {
+        windowIndex = new FilmWindowIndex(null, clock);
+    }
+
+    @Test
+    @DisplayName("Each window counts only the likes made within it")
+    void testWindows() {
+        like(1, 1, Duration.ofMinutes(10));
+        like(2, 1, Duration.ofHours(5));
+        like(2, 2, Duration.ofHours(6));
+        like(3, 1, Duration.ofDays(3));
+        like(3, 2, Duration.ofDays(3));
+        like(3, 3, Duration.ofDays(4));
+        like(4, 1, Duration.ofDays(9));
+
+        assertThat(windowIndex.getTopFilmIds(HOUR, 10)).containsExactly(1);
+        assertThat(windowIndex.getTopFilmIds(DAY, 10)).containsExactly(2, 1);
+        assertThat(windowIndex.getTopFilmIds(WEEK, 10)).containsExactly(3, 2, 1);
+        assertThat(windowIndex.getTopFilmIds(WEEK, 2)).containsExactly(3, 2);
+    }
+
+    @Test
+    @DisplayName("Likes age out of the windows as time passes")
+    void testLikesAgeOut() {
+        like(1, 1, Duration.ZERO);
+        like(2, 1, Duration.ZERO);
+        like(2, 2, Duration.ofMinutes(30));
+
+        assertThat(windowIndex.getTopFilmIds(HOUR, 10)).containsExactly(2, 1);
+
+        clock.advance(Duration.ofMinutes(45));
+        assertThat(windowIndex.getTopFilmIds(HOUR, 10)).containsExactly(1, 2);
+
+        clock.advance(Duration.ofHours(2));
+        assertThat(windowIndex.getTopFilmIds(HOUR, 10)).isEmpty();
+        assertThat(windowIndex.getTopFilmIds(DAY, 10)).containsExactly(2, 1);
+
+        clock.advance(Duration.ofDays(8));
+        assertThat(windowIndex.getTopFilmIds(WEEK, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Unliking takes the like out of the bucket it was counted in")
+    void testUnlike() {
+        like(1, 1, Duration.ofMinutes(5));
+        like(1, 2, Duration.ofHours(3));
+        like(2, 1, Duration.ofHours(4));
+
+        windowIndex.onLikeChanged(new LikeChangedEvent(1, 2, false, now().minusHours(3)));
+        assertThat(windowIndex.getTopFilmIds(DAY, 10)).containsExactly(1, 2);
+        assertThat(windowIndex.getTopFilmIds(HOUR, 10)).containsExactly(1);
+
+        windowIndex.onLikeChanged(new LikeChangedEvent(1, 1, false, now().minusMinutes(5)));
+        assertThat(windowIndex.getTopFilmIds(WEEK, 10)).containsExactly(2);
+    }
+
+    private void like(int filmId, int userId, Duration ago) {
+        windowIndex.onLikeChanged(new LikeChangedEvent(filmId, userId, true, now().minus(ago)));
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.model.FeedEvent;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FriendFeedTest {
+
+    @Mock
+    private FriendshipGraph mockFriendshipGraph;
+
+    private FriendFeed friendFeed;
+
+    @BeforeEach
+    void setUp() {
+        friendFeed = new FriendFeed(mockFriendshipGraph, 3, 2);
+        // users 1 and 2 follow user 3; users 1, 2 and 4 follow user 5, which is above the fan-out threshold
+        when(mockFriendshipGraph.getFollowerIds(3)).thenReturn(new int[]{1, 2});
+        when(mockFriendshipGraph.getFollowerIds(5)).thenReturn(new int[]{1, 2, 4});
+        when(mockFriendshipGraph.getFollowerCount(3)).thenReturn(2);
+        when(mockFriendshipGraph.getFollowerCount(5)).thenReturn(3);
+        when(mockFriendshipGraph.getFollowerIds(1)).thenReturn(new int[0]);
+        when(mockFriendshipGraph.getFriendIds(1)).thenReturn(new int[]{3, 5});
+        when(mockFriendshipGraph.getFriendIds(2)).thenReturn(new int[]{3});
+        when(mockFriendshipGraph.getFriendIds(4)).thenReturn(new int[]{5});
+    }
+
+    @Test
+    @DisplayName("Events of friends are pushed to inboxes and merged with high-degree outboxes")
+    void testFeedMergesPushedAndPulledEvents() {
+        friendFeed.onLikeChanged(new LikeChangedEvent(10, 3, true));
+        friendFeed.onLikeChanged(new LikeChangedEvent(20, 5, true));
+        friendFeed.onFriendshipChanged(new FriendshipChangedEvent(3, 7, true));
+        friendFeed.onLikeChanged(new LikeChangedEvent(30, 1, true));
+
+        assertThat(friendFeed.getFeed(1, 10))
+                .extracting(FeedEvent::getUserId, FeedEvent::getEventType, FeedEvent::getEntityId)
+                .containsExactly(tuple(3, FeedEvent.EventType.FRIEND, 7),
+                        tuple(5, FeedEvent.EventType.LIKE, 20),
+                        tuple(3, FeedEvent.EventType.LIKE, 10));
+        assertThat(friendFeed.getFeed(2, 10)).extracting(FeedEvent::getEntityId).containsExactly(7, 10);
+        assertThat(friendFeed.getFeed(1, 1)).extracting(FeedEvent::getEntityId).containsExactly(7);
+        assertThat(friendFeed.getFeed(4, 10)).extracting(FeedEvent::getEntityId).containsExactly(20);
+    }
+
+    @Test
+    @DisplayName("Rings keep only the most recent events")
+    void testRingIsBounded() {
+        for (int filmId = 1; filmId <= 5; filmId++) {
+            friendFeed.onLikeChanged(new LikeChangedEvent(filmId, 3, true));
+        }
+        friendFeed.onLikeChanged(new LikeChangedEvent(5, 3, false));
+
+        assertThat(friendFeed.getFeed(2, 10))
+                .extracting(FeedEvent::getOperation, FeedEvent::getEntityId)
+                .containsExactly(tuple(FeedEvent.Operation.REMOVE, 5),
+                        tuple(FeedEvent.Operation.ADD, 5),
+                        tuple(FeedEvent.Operation.ADD, 4));
+    }
+
+    @Test
+    @DisplayName("Events published concurrently come back newest first")
+    void testConcurrentPublishKeepsOrder() throws Exception {
+        FriendFeed concurrentFeed = new FriendFeed(mockFriendshipGraph, 1000, 2);
+        try (ExecutorService publishers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int filmId = 0; filmId < 500; filmId++) {
+                int likedFilm = filmId;
+                publishers.submit(() -> concurrentFeed.onLikeChanged(new LikeChangedEvent(likedFilm, 3, true)));
+            }
+        }
+
+        List<FeedEvent> feed = concurrentFeed.getFeed(2, 1000);
+        assertThat(feed).hasSize(500);
+        assertThat(feed).isSortedAccordingTo(Comparator.comparingLong(FeedEvent::getEventId).reversed());
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendSuggestionCacheTest {
+
+    @Mock
+    private FriendshipGraph mockFriendshipGraph;
+
+    private FriendSuggestionCache suggestionCache;
+
+    @BeforeEach
+    void setUp() {
+        suggestionCache = new FriendSuggestionCache(mockFriendshipGraph, 50, 3);
+    }
+
+    private void stubGraph() {
+        when(mockFriendshipGraph.getFriendIds(1)).thenReturn(new int[]{2, 3});
+        when(mockFriendshipGraph.getFriendIds(2)).thenReturn(new int[]{1, 4, 5});
+        when(mockFriendshipGraph.getFriendIds(3)).thenReturn(new int[]{5, 6});
+    }
+
+    @Test
+    @DisplayName("Non-friends are ranked by mutual friends, ties by id")
+    void testRanking() {
+        stubGraph();
+        assertThat(suggestionCache.getSuggestedIds(1, 10)).containsExactly(5, 4, 6);
+        assertThat(suggestionCache.getSuggestedIds(1, 1)).containsExactly(5);
+        verify(mockFriendshipGraph, times(1)).getFriendIds(1);
+    }
+
+    @Test
+    @DisplayName("A friend with more friends than the cap contributes at most cap of them")
+    void testFanoutCap() {
+        FriendSuggestionCache capped = new FriendSuggestionCache(mockFriendshipGraph, 50, 2);
+        when(mockFriendshipGraph.getFriendIds(7)).thenReturn(new int[]{8});
+        when(mockFriendshipGraph.getFriendIds(8)).thenReturn(new int[]{7, 10, 11, 12, 13});
+
+        assertThat(capped.getSuggestedIds(7, 10)).containsExactly(12);
+    }
+
+    @Test
+    @DisplayName("Friendship change of a friend invalidates the cached suggestions")
+    void testInvalidation() {
+        stubGraph();
+        suggestionCache.getSuggestedIds(1, 10);
+
+        when(mockFriendshipGraph.getFriendIds(3)).thenReturn(new int[]{6});
+        suggestionCache.onFriendshipChanged(new FriendshipChangedEvent(3, 5, false));
+
+        assertThat(suggestionCache.getSuggestedIds(1, 10)).containsExactly(4, 5, 6);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.FriendshipChangedEvent;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FriendshipGraph.class})
+class FriendshipGraphTest {
+
+    private final FriendshipGraph friendshipGraph;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int insertUser(String login) {
+        jdbcTemplate.update("INSERT INTO Users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM Users WHERE login = ?", Integer.class, login);
+    }
+
+    private void insertFriend(int userId, int friendId) {
+        jdbcTemplate.update("INSERT INTO user_friends (user_id, friend_id, status) VALUES (?, ?, ?)", userId, friendId, "CONFIRMED");
+    }
+
+    @Test
+    @DisplayName("Friend lists and common friends are served from the CSR snapshot")
+    void testSnapshotQueries() {
+        int user1 = insertUser("csr_user1");
+        int user2 = insertUser("csr_user2");
+        int friend1 = insertUser("csr_friend1");
+        int friend2 = insertUser("csr_friend2");
+        insertFriend(user1, friend2);
+        insertFriend(user1, friend1);
+        insertFriend(user2, friend2);
+        friendshipGraph.rebuild();
+
+        assertThat(friendshipGraph.getFriendIds(user1)).containsExactly(friend1, friend2);
+        assertThat(friendshipGraph.getFriendIds(friend1)).isEmpty();
+        assertThat(friendshipGraph.getCommonFriendIds(user1, user2)).containsExactly(friend2);
+        assertThat(friendshipGraph.getCommonFriendIds(user1, 999_999)).isEmpty();
+        assertThat(friendshipGraph.getFollowerIds(friend2)).containsExactly(user1, user2);
+        assertThat(friendshipGraph.getFollowerCount(friend1)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Overlay changes are visible before and after compaction")
+    void testOverlayAndCompaction() {
+        int user1 = insertUser("csr_user3");
+        int user2 = insertUser("csr_user4");
+        int friend = insertUser("csr_friend3");
+        friendshipGraph.rebuild();
+
+        friendshipGraph.onFriendshipChanged(new FriendshipChangedEvent(user1, friend, true));
+        friendshipGraph.onFriendshipChanged(new FriendshipChangedEvent(user2, friend, true));
+        friendshipGraph.onFriendshipChanged(new FriendshipChangedEvent(user2, user1, true));
+        assertThat(friendshipGraph.getCommonFriendIds(user1, user2)).containsExactly(friend);
+
+        friendshipGraph.compact();
+        assertThat(friendshipGraph.getFriendIds(user2)).containsExactly(user1, friend);
+
+        friendshipGraph.onFriendshipChanged(new FriendshipChangedEvent(user2, user1, false));
+        friendshipGraph.compact();
+        assertThat(friendshipGraph.getFriendIds(user2)).containsExactly(friend);
+        assertThat(friendshipGraph.getFriendIds(user1)).containsExactly(friend);
+        assertThat(friendshipGraph.getFollowerIds(friend)).containsExactly(user1, user2);
+        assertThat(friendshipGraph.getFollowerIds(user1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Returned friend lists are the caller's own, from the arrays or the overlay")
+    void testReturnedRowsAreCopies() {
+        int user = insertUser("csr_user5");
+        int friend1 = insertUser("csr_friend4");
+        int friend2 = insertUser("csr_friend5");
+        insertFriend(user, friend1);
+        friendshipGraph.rebuild();
+
+        friendshipGraph.getFriendIds(user)[0] = -1;
+        assertThat(friendshipGraph.getFriendIds(user)).containsExactly(friend1);
+
+        friendshipGraph.onFriendshipChanged(new FriendshipChangedEvent(user, friend2, true));
+        friendshipGraph.getFriendIds(user)[0] = -1;
+        friendshipGraph.getFollowerIds(friend2)[0] = -1;
+        assertThat(friendshipGraph.getFriendIds(user)).containsExactly(friend1, friend2);
+        assertThat(friendshipGraph.getFollowerIds(friend2)).containsExactly(user);
+    }
+
+    @Test
+    @DisplayName("Galloping and merge intersections agree")
+    void testIntersect() {
+        int[] small = {3, 500, 999};
+        int[] large = new int[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i;
+        }
+        assertThat(SortedIntArrays.intersect(small, large)).containsExactly(3, 500, 999);
+        assertThat(SortedIntArrays.intersect(new int[]{1, 2, 5}, new int[]{2, 5, 7})).containsExactly(2, 5);
+        assertThat(SortedIntArrays.intersect(new int[]{1000, 2000}, large)).isEmpty();
+    }
+}
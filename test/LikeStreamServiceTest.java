@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.interfaces.FilmStorage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeStreamServiceTest {
+
+    @Mock
+    private FilmStorage mockFilmStorage;
+
+    @Mock
+    private FilmPopularityIndex mockPopularityIndex;
+
+    private final List<StubEmitter> emitters = new ArrayList<>();
+    private CountDownLatch sendGate = new CountDownLatch(0);
+    private LikeStreamService likeStreamService;
+
+    @BeforeEach
+    void setUp() {
+        likeStreamService = new LikeStreamService(mockFilmStorage, mockPopularityIndex, new ObjectMapper(), () -> {
+            StubEmitter emitter = new StubEmitter(sendGate);
+            emitters.add(emitter);
+            return emitter;
+        });
+        lenient().when(mockFilmStorage.getFilmById(1)).thenReturn(Optional.of(new Film()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        likeStreamService.shutdown();
+    }
+
+    @Test
+    @DisplayName("A tick sends one payload per dirty film with subscribers")
+    void testTickCoalescesChanges() throws Exception {
+        when(mockPopularityIndex.getLikeCount(1)).thenReturn(1, 1, 4);
+        likeStreamService.subscribeToFilm(1);
+        likeStreamService.subscribeToFilm(1);
+        for (StubEmitter emitter : emitters) {
+            assertThat(emitter.next()).isEqualTo("{\"filmId\":1,\"likes\":1}");
+        }
+
+        for (int userId = 1; userId <= 3; userId++) {
+            likeStreamService.onLikeChanged(new LikeChangedEvent(1, userId, true));
+        }
+        likeStreamService.onLikeChanged(new LikeChangedEvent(2, 1, true));
+        likeStreamService.tick();
+        likeStreamService.tick();
+
+        for (StubEmitter emitter : emitters) {
+            assertThat(emitter.next()).isEqualTo("{\"filmId\":1,\"likes\":4}");
+            assertThat(emitter.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        }
+        verify(mockPopularityIndex, times(3)).getLikeCount(1);
+        verify(mockPopularityIndex, never()).getLikeCount(2);
+    }
+
+    @Test
+    @DisplayName("A slow subscriber gets only the latest payload once its send completes")
+    void testSlowSubscriberDropsOlderPayloads() throws Exception {
+        when(mockPopularityIndex.getLikeCount(1)).thenReturn(1, 2, 3, 4);
+        sendGate = new CountDownLatch(1);
+        StubEmitter slow = (StubEmitter) likeStreamService.subscribeToFilm(1);
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int userId = 1; userId <= 3; userId++) {
+            likeStreamService.onLikeChanged(new LikeChangedEvent(1, userId, true));
+            likeStreamService.tick();
+        }
+        sendGate.countDown();
+
+        assertThat(slow.next()).isEqualTo("{\"filmId\":1,\"likes\":1}");
+        assertThat(slow.next()).isEqualTo("{\"filmId\":1,\"likes\":4}");
+        assertThat(slow.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    @DisplayName("Completion, timeout and error unregister, and the last one out removes the key")
+    void testUnregister() {
+        likeStreamService.subscribeToFilm(1);
+        likeStreamService.subscribeToFilm(1);
+        likeStreamService.subscribeToPopular(5);
+        assertThat(likeStreamService.getStreamedKeyCount()).isEqualTo(2);
+
+        emitters.get(0).completion.run();
+        assertThat(likeStreamService.getStreamedKeyCount()).isEqualTo(2);
+        emitters.get(1).timeout.run();
+        emitters.get(2).error.accept(new IOException("broken pipe"));
+        assertThat(likeStreamService.getStreamedKeyCount()).isZero();
+
+        likeStreamService.onLikeChanged(new LikeChangedEvent(1, 1, true));
+        likeStreamService.tick();
+        verify(mockPopularityIndex, times(2)).getLikeCount(1);
+    }
+
+    /**
+     * Records sent JSON payloads and the registered callbacks. Each send first waits for the
+     * gate, which is open unless a test closes it before subscribing.
+     */
+    private static final class StubEmitter extends SseEmitter {
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch gate;
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private Runnable completion;
+        private Runnable timeout;
+        private Consumer<Throwable> error;
+
+        StubEmitter(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> datas) {
+            sending.countDown();
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            datas.stream()
+                    .filter(data -> MediaType.APPLICATION_JSON.equals(data.getMediaType()))
+                    .forEach(data -> sent.add((String) data.getData()));
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completion = callback;
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeout = callback;
+        }
+
+        @Override
+        public synchronized void onError(Consumer<Throwable> callback) {
+            error = callback;
+        }
+
+        String next() throws InterruptedException {
+            return sent.poll(5, TimeUnit.SECONDS);
+        }
+    }
+}
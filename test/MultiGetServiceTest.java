@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MultiGetResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.services.MultiGetService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultiGetServiceTest {
+
+    @Mock
+    private FilmDbStorage mockFilmDbStorage;
+
+    @Mock
+    private UserStorage mockUserStorage;
+
+    private MultiGetService multiGetService;
+
+    @BeforeEach
+    void setUp() {
+        multiGetService = new MultiGetService(mockFilmDbStorage, mockUserStorage, 5);
+    }
+
+    @Test
+    @DisplayName("Films are loaded in one call, in request order, with missing ids reported")
+    void testGetFilms() {
+        when(mockFilmDbStorage.getFilmsByIds(any())).thenReturn(List.of(film(3), film(1)));
+
+        MultiGetResult<Film> result = multiGetService.getFilms(Arrays.asList(3, 2, 1, 3));
+
+        assertThat(result.getItems()).extracting(Film::getId).containsExactly(3, 1);
+        assertThat(result.getMissingIds()).containsExactly(2);
+        verify(mockFilmDbStorage, times(1)).getFilmsByIds(Set.of(3, 2, 1));
+    }
+
+    @Test
+    @DisplayName("Users are loaded in one call with missing ids reported")
+    void testGetUsers() {
+        User user = new User();
+        user.setId(7);
+        when(mockUserStorage.getUsersByIds(any())).thenReturn(List.of(user));
+
+        MultiGetResult<User> result = multiGetService.getUsers(List.of(7, 8));
+
+        assertThat(result.getItems()).containsExactly(user);
+        assertThat(result.getMissingIds()).containsExactly(8);
+    }
+
+    @Test
+    @DisplayName("Empty and oversized batches are rejected without querying")
+    void testBatchLimits() {
+        assertThatThrownBy(() -> multiGetService.getFilms(List.of()))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> multiGetService.getUsers(IntStream.rangeClosed(1, 6).boxed().toList()))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("At most 5 ids can be requested at once");
+        verifyNoInteractions(mockFilmDbStorage, mockUserStorage);
+    }
+
+    private static Film film(int id) {
+        Film film = new Film();
+        film.setId(id);
+        return film;
+    }
+}
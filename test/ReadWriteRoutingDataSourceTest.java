@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private ReplicaSnapshotSync replication;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database();
+        DataSource replica = database();
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(primary);
+        replication = new ReplicaSnapshotSync(primary, replica);
+        replication.createSchema();
+
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbcTemplate = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Read-only transactions read the replica, read-write transactions the primary")
+    void testReadOnlyTransactionsUseReplica() {
+        readWrite.executeWithoutResult(status -> insertUser("first"));
+
+        assertThat(countUsersIn(readOnly)).isZero();
+        assertThat(countUsersIn(readWrite)).isEqualTo(1);
+
+        replication.sync();
+        assertThat(countUsersIn(readOnly)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Work outside a request, such as startup and scheduled jobs, uses the primary")
+    void testBackgroundReadsUsePrimary() {
+        readWrite.executeWithoutResult(status -> insertUser("first"));
+
+        assertThat(countUsers()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A request reads the replica until it writes, then reads its own writes")
+    void testReadYourWritesWithinRequest() {
+        readWrite.executeWithoutResult(status -> insertUser("first"));
+        replication.sync();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(countUsers()).isEqualTo(1);
+
+        readWrite.executeWithoutResult(status -> insertUser("second"));
+        assertThat(countUsers()).isEqualTo(2);
+        assertThat(countUsersIn(readOnly)).isEqualTo(2);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(countUsers()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Reads bound to the primary see writes the replica has not copied yet")
+    void testOnPrimaryBypassesReplica() {
+        readWrite.executeWithoutResult(status -> insertUser("first"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertThat(countUsers()).isZero();
+        assertThat(ReadWriteRoutingDataSource.onPrimary(this::countUsers)).isEqualTo(1);
+        assertThat(countUsers()).isZero();
+    }
+
+    private void insertUser(String login) {
+        jdbcTemplate.update("INSERT INTO Users (login, email, name, birthday) VALUES (?, ?, ?, DATE '1990-01-01')",
+                login, login + "@example.com", login);
+    }
+
+    private int countUsers() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Users", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private int countUsersIn(TransactionTemplate transaction) {
+        Integer count = transaction.execute(status -> countUsers());
+        return count != null ? count : 0;
+    }
+
+    private static DataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private ResponseCacheFilter filter;
+    private AtomicInteger renders;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ResponseCacheFilter(100);
+        renders = new AtomicInteger();
+        chain = (request, response) -> {
+            response.setContentType("application/json");
+            response.getOutputStream().write(("{\"render\":" + renders.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletResponse get(String uri, boolean gzip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (gzip) {
+            request.addHeader("Accept-Encoding", "gzip, deflate");
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Hot endpoints are rendered once and served from cached bytes, plain or gzipped")
+    void testServesCachedBytes() throws Exception {
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("{\"render\":1}");
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("{\"render\":1}");
+
+        MockHttpServletResponse gzipped = get("/films/1", true);
+        assertThat(gzipped.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gzipped.getHeader("Vary")).isEqualTo("Accept, Accept-Encoding");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("{\"render\":1}");
+        }
+        assertThat(renders).hasValue(1);
+
+        assertThat(get("/films/popular/stream", false).getContentAsString()).isEqualTo("{\"render\":2}");
+        assertThat(get("/films/popular/stream", false).getContentAsString()).isEqualTo("{\"render\":3}");
+    }
+
+    @Test
+    @DisplayName("Like changes evict the film and the popular lists")
+    void testLikeEvictsFilmAndPopular() throws Exception {
+        get("/films/1", false);
+        get("/films/2", false);
+        get("/films/popular", false);
+
+        filter.onLikeChanged(new LikeChangedEvent(1, 5, true));
+
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("{\"render\":4}");
+        assertThat(get("/films/2", false).getContentAsString()).isEqualTo("{\"render\":2}");
+        assertThat(get("/films/popular", false).getContentAsString()).isEqualTo("{\"render\":5}");
+    }
+
+    @Test
+    @DisplayName("Non-JSON bodies are passed through and never cached")
+    void testSkipsNonJsonBodies() throws Exception {
+        chain = (request, response) -> {
+            response.setContentType("application/xml");
+            response.getOutputStream().write(("<render>" + renders.incrementAndGet() + "</render>").getBytes(StandardCharsets.UTF_8));
+        };
+
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("<render>1</render>");
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("<render>2</render>");
+    }
+
+    @Test
+    @DisplayName("A full cache drops the least recently used entry instead of refusing new ones")
+    void testEvictsLeastRecentlyUsed() throws Exception {
+        filter = new ResponseCacheFilter(2);
+        get("/films/1", false);
+        get("/films/2", false);
+        get("/films/1", false);
+        get("/films/3", false);
+
+        assertThat(get("/films/3", false).getContentAsString()).isEqualTo("{\"render\":3}");
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("{\"render\":1}");
+        assertThat(get("/films/2", false).getContentAsString()).isEqualTo("{\"render\":4}");
+    }
+
+    @Test
+    @DisplayName("A body rendered while its film changed is not stored")
+    void testSkipsBodyRenderedDuringEviction() throws Exception {
+        FilterChain render = chain;
+        chain = (request, response) -> {
+            render.doFilter(request, response);
+            filter.onLikeChanged(new LikeChangedEvent(1, 5, true));
+        };
+        get("/films/1", false);
+
+        chain = render;
+        assertThat(get("/films/1", false).getContentAsString()).isEqualTo("{\"render\":2}");
+    }
+
+    @Test
+    @DisplayName("A miss is rendered on the primary, so a lagging replica is never cached")
+    void testMissIsRenderedOnPrimary() throws Exception {
+        DataSource primary = database();
+        DataSource replica = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica)));
+        new JdbcTemplate(primary).update("INSERT INTO Films (name, description, releaseDate, mpa_id, duration) " +
+                "VALUES ('Arrival', 'description', DATE '2016-01-01', 1, 116)");
+        chain = (request, response) -> {
+            response.setContentType("application/json");
+            Integer films = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Films", Integer.class);
+            response.getOutputStream().write(("{\"films\":" + films + "}").getBytes(StandardCharsets.UTF_8));
+        };
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Films", Integer.class)).isZero();
+            assertThat(get("/films/popular", false).getContentAsString()).isEqualTo("{\"films\":1}");
+            assertThat(get("/films/popular", false).getContentAsString()).isEqualTo("{\"films\":1}");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private static DataSource database() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        return dataSource;
+    }
+}
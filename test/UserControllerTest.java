@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.FriendshipAck;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.services.FilmService;
+import ru.yandex.practicum.filmorate.services.MultiGetService;
+import ru.yandex.practicum.filmorate.services.UserService;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserController.class)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private FilmService filmService;
+
+    @MockitoBean
+    private MultiGetService multiGetService;
+
+    @Test
+    @DisplayName("Friend changes answer with an acknowledgement, or the full user when full=true")
+    void testFriendResponses() throws Exception {
+        User user = new User(1, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), 0, new HashSet<>());
+        when(userService.addFriend(1, 2)).thenReturn(new FriendshipAck(1, 2, true));
+        when(userService.addFriends(1, 2)).thenReturn(user);
+        when(userService.deleteFriend(1, 2)).thenReturn(new FriendshipAck(1, 2, false));
+        when(userService.deleteFriends(1, 2)).thenReturn(user);
+
+        mockMvc.perform(put("/users/1/friends/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends").value(true));
+        mockMvc.perform(put("/users/1/friends/2").param("full", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friendId").value(2));
+        mockMvc.perform(put("/users/1/friends/2").param("full", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("user1"));
+        mockMvc.perform(delete("/users/1/friends/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.friends").value(false));
+        mockMvc.perform(delete("/users/1/friends/2").param("full", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("user1"));
+    }
+}
@@ -9,7 +9,10 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
+import ru.yandex.practicum.filmorate.exceptions.PreconditionFailedException;
+import ru.yandex.practicum.filmorate.model.FriendshipCheck;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.batch.BatchLoaders;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -21,7 +24,7 @@ import static org.assertj.core.api.Assertions.*;
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({UserDbStorage.class})
+@Import({UserDbStorage.class, BatchLoaders.class})
 class UserDbStorageTest {
 
     private final UserDbStorage userStorage;
@@ -123,6 +126,26 @@ class UserDbStorageTest {
                 .hasMessageContaining("User not found");
     }
 
+    @Test
+    @DisplayName("Update with a stale version throws PreconditionFailedException")
+    void testUpdateUserWithStaleVersion() {
+        int userId = insertUser(createTestUser("versioned@example.com", "versioned", "Versioned", LocalDate.of(1990, 1, 1)));
+
+        User firstUpdate = createTestUser("versioned@example.com", "versioned", "First", LocalDate.of(1990, 1, 1));
+        firstUpdate.setId(userId);
+        firstUpdate.setVersion(0);
+        assertThat(userStorage.updateUser(firstUpdate).getVersion()).isEqualTo(1);
+
+        User staleUpdate = createTestUser("versioned@example.com", "versioned", "Stale", LocalDate.of(1990, 1, 1));
+        staleUpdate.setId(userId);
+        staleUpdate.setVersion(0);
+        assertThatThrownBy(() -> userStorage.updateUser(staleUpdate))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        String name = jdbcTemplate.queryForObject("SELECT name FROM Users WHERE id = ?", String.class, userId);
+        assertThat(name).isEqualTo("First");
+    }
+
     @Test
     @DisplayName("Get user by existing ID without friends")
     void testGetUserByIdExistingWithoutFriends() {
@@ -251,6 +274,28 @@ class UserDbStorageTest {
         assertThat(count).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("Check friendship reports existence of both users and the relation")
+    void testCheckFriendship() {
+        User user1 = createTestUser("check1@example.com", "ch_user1", "CH User One", LocalDate.of(1990, 1, 1));
+        User user2 = createTestUser("check2@example.com", "ch_user2", "CH User Two", LocalDate.of(1991, 1, 1));
+        int user1Id = insertUser(user1);
+        int user2Id = insertUser(user2);
+
+        FriendshipCheck check = userStorage.checkFriendship(user1Id, user2Id);
+        assertThat(check.isUserExists()).isTrue();
+        assertThat(check.isFriendExists()).isTrue();
+        assertThat(check.isFriends()).isFalse();
+
+        userStorage.addFriend(user1Id, user2Id);
+        assertThat(userStorage.checkFriendship(user1Id, user2Id).isFriends()).isTrue();
+        assertThat(userStorage.checkFriendship(user2Id, user1Id).isFriends()).isFalse();
+
+        FriendshipCheck missing = userStorage.checkFriendship(user1Id, 999);
+        assertThat(missing.isUserExists()).isTrue();
+        assertThat(missing.isFriendExists()).isFalse();
+    }
+
     @Test
     @DisplayName("Remove non-existent friend relation does not throw exception")
     void testRemoveNonExistentFriend() {
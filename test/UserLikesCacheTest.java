@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.LikeChangedEvent;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({UserLikesCache.class})
+class UserLikesCacheTest {
+
+    private final UserLikesCache userLikesCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int insertUser(String login) {
+        jdbcTemplate.update("INSERT INTO Users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                login + "@example.com", login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM Users WHERE login = ?", Integer.class, login);
+    }
+
+    private int insertFilm(String name) {
+        jdbcTemplate.update("INSERT INTO Films (name, description, releaseDate, mpa_id, duration) VALUES (?, ?, ?, ?, ?)",
+                name, "description", LocalDate.of(2000, 1, 1), 1, 100);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM Films WHERE name = ?", Integer.class, name);
+    }
+
+    private void insertLike(int filmId, int userId) {
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, like_user_id) VALUES (?, ?)", filmId, userId);
+    }
+
+    @Test
+    @DisplayName("Common likes are the intersection of both users' lists, ascending")
+    void testCommonLikes() {
+        int heavy = insertUser("likes_heavy");
+        int light = insertUser("likes_light");
+        int[] films = new int[100];
+        for (int i = 0; i < films.length; i++) {
+            films[i] = insertFilm("likes_film" + i);
+            insertLike(films[i], heavy);
+        }
+        insertLike(films[70], light);
+        insertLike(films[3], light);
+        int onlyLight = insertFilm("likes_only_light");
+        insertLike(onlyLight, light);
+
+        assertThat(userLikesCache.getCommonLikedFilmIds(heavy, light)).containsExactly(films[3], films[70]);
+        assertThat(userLikesCache.getCommonLikedFilmIds(light, heavy)).containsExactly(films[3], films[70]);
+        assertThat(userLikesCache.getCommonLikedFilmIds(heavy, 999_999)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Cached lists follow like events, and evicted lists are read again")
+    void testEventsAndEviction() {
+        int user1 = insertUser("likes_user1");
+        int user2 = insertUser("likes_user2");
+        int film1 = insertFilm("likes_event1");
+        int film2 = insertFilm("likes_event2");
+        insertLike(film1, user1);
+        insertLike(film1, user2);
+        assertThat(userLikesCache.getCommonLikedFilmIds(user1, user2)).containsExactly(film1);
+
+        userLikesCache.onLikeChanged(new LikeChangedEvent(film2, user1, true));
+        userLikesCache.onLikeChanged(new LikeChangedEvent(film2, user2, true));
+        userLikesCache.onLikeChanged(new LikeChangedEvent(film1, user2, false));
+        assertThat(userLikesCache.getCommonLikedFilmIds(user1, user2)).containsExactly(film2);
+
+        UserLikesCache singleUserCache = new UserLikesCache(jdbcTemplate, 1);
+        assertThat(singleUserCache.getCommonLikedFilmIds(user1, user2)).containsExactly(film1);
+        insertLike(film2, user1);
+        insertLike(film2, user2);
+        assertThat(singleUserCache.getCommonLikedFilmIds(user2, user2)).containsExactly(film1);
+        assertThat(singleUserCache.getCommonLikedFilmIds(user1, user1)).containsExactly(film1, film2);
+    }
+}
@@ -7,11 +7,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.yandex.practicum.filmorate.exceptions.ConflictException;
 import ru.yandex.practicum.filmorate.exceptions.ContentNotException;
 import ru.yandex.practicum.filmorate.exceptions.NotFoundException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendshipAck;
+import ru.yandex.practicum.filmorate.model.FriendshipCheck;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.services.UserService;
+import ru.yandex.practicum.filmorate.storage.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.index.UserAutocompleteIndex;
+import ru.yandex.practicum.filmorate.storage.index.UserUniquenessFilter;
 import ru.yandex.practicum.filmorate.storage.interfaces.UserStorage;
 
 import java.time.LocalDate;
@@ -27,6 +33,12 @@ class UserServiceTest {
     @Mock
     private UserStorage mockUserStorage;
 
+    @Mock
+    private UserUniquenessFilter mockUniquenessFilter;
+
+    @Mock
+    private FriendshipGraph mockFriendshipGraph;
+
     @InjectMocks
     private UserService userService;
 
@@ -36,17 +48,17 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        user1 = new User(1, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), new HashSet<>());
-        user2 = new User(2, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), new HashSet<>());
-        user3 = new User(3, "user3@example.com", "user3", "User Three", LocalDate.of(1992, 3, 3), new HashSet<>());
+        user1 = new User(1, "user1@example.com", "user1", "User One", LocalDate.of(1990, 1, 1), null, new HashSet<>());
+        user2 = new User(2, "user2@example.com", "user2", "User Two", LocalDate.of(1991, 2, 2), null, new HashSet<>());
+        user3 = new User(3, "user3@example.com", "user3", "User Three", LocalDate.of(1992, 3, 3), null, new HashSet<>());
     }
 
 
     @Test
     @DisplayName("Add user with blank name - name should be set to login")
     void testAddUserBlankName() {
-        User newUser = new User(0, "new@example.com", "new_user", "", LocalDate.of(2000, 1, 1), new HashSet<>());
-        User userAfterAdd = new User(10, "new@example.com", "new_user", "new_user", LocalDate.of(2000, 1, 1), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "new_user", "", LocalDate.of(2000, 1, 1), null, new HashSet<>());
+        User userAfterAdd = new User(10, "new@example.com", "new_user", "new_user", LocalDate.of(2000, 1, 1), null, new HashSet<>());
 
         when(mockUserStorage.addUser(any(User.class))).thenReturn(userAfterAdd);
 
@@ -59,8 +71,8 @@ class UserServiceTest {
     @Test
     @DisplayName("Add user with null name - name should be set to login")
     void testAddUserNullName() {
-        User newUser = new User(0, "new@example.com", "new_user", null, LocalDate.of(2000, 1, 1), new HashSet<>());
-        User userAfterAdd = new User(10, "new@example.com", "new_user", "new_user", LocalDate.of(2000, 1, 1), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "new_user", null, LocalDate.of(2000, 1, 1), null, new HashSet<>());
+        User userAfterAdd = new User(10, "new@example.com", "new_user", "new_user", LocalDate.of(2000, 1, 1), null, new HashSet<>());
 
         when(mockUserStorage.addUser(any(User.class))).thenReturn(userAfterAdd);
 
@@ -70,10 +82,39 @@ class UserServiceTest {
         verify(mockUserStorage, times(1)).addUser(newUser);
     }
 
+    @Test
+    @DisplayName("Add user with taken login throws ConflictException without insert")
+    void testAddUserDuplicateLogin() {
+        User newUser = new User(0, "new@example.com", "user1", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
+
+        when(mockUniquenessFilter.mightContainLogin("user1")).thenReturn(true);
+        when(mockUserStorage.existsByLogin("user1")).thenReturn(true);
+
+        assertThatThrownBy(() -> userService.addUser(newUser))
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("login user1 already exists");
+
+        verify(mockUserStorage, never()).addUser(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Add user skips uniqueness probe on Bloom filter miss")
+    void testAddUserBloomMissSkipsProbe() {
+        User newUser = new User(0, "new@example.com", "new_user", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
+
+        when(mockUserStorage.addUser(any(User.class))).thenReturn(newUser);
+
+        userService.addUser(newUser);
+
+        verify(mockUserStorage, never()).existsByLogin(anyString());
+        verify(mockUserStorage, never()).existsByEmail(anyString());
+        verify(mockUserStorage, times(1)).addUser(newUser);
+    }
+
     @Test
     @DisplayName("Add user with invalid email throws ValidationException")
     void testAddUserInvalidEmail() {
-        User newUser = new User(0, "invalid-email", "new_user", "New User", LocalDate.of(2000, 1, 1), new HashSet<>());
+        User newUser = new User(0, "invalid-email", "new_user", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
 
         assertThatThrownBy(() -> userService.addUser(newUser))
                 .isInstanceOf(ValidationException.class)
@@ -85,7 +126,7 @@ class UserServiceTest {
     @Test
     @DisplayName("Add user with invalid login (spaces) throws ValidationException")
     void testAddUserInvalidLoginSpaces() {
-        User newUser = new User(0, "new@example.com", "new user", "New User", LocalDate.of(2000, 1, 1), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "new user", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
 
         assertThatThrownBy(() -> userService.addUser(newUser))
                 .isInstanceOf(ValidationException.class)
@@ -97,7 +138,7 @@ class UserServiceTest {
     @Test
     @DisplayName("Add user with blank login throws ValidationException")
     void testAddUserBlankLogin() {
-        User newUser = new User(0, "new@example.com", "", "New User", LocalDate.of(2000, 1, 1), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
 
         assertThatThrownBy(() -> userService.addUser(newUser))
                 .isInstanceOf(ValidationException.class)
@@ -110,7 +151,7 @@ class UserServiceTest {
     @Test
     @DisplayName("Add user with future birthday throws ValidationException")
     void testAddUserFutureBirthday() {
-        User newUser = new User(0, "new@example.com", "new_user", "New User", LocalDate.now().plusDays(1), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "new_user", "New User", LocalDate.now().plusDays(1), null, new HashSet<>());
 
         assertThatThrownBy(() -> userService.addUser(newUser))
                 .isInstanceOf(ValidationException.class)
@@ -121,164 +162,126 @@ class UserServiceTest {
 
 
     @Test
-    @DisplayName("Add friend successfully")
+    @DisplayName("Add friend returns a compact acknowledgement without loading users")
     void testAddFriendSuccessfully() {
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, true, false));
 
-        User user1BeforeAdd = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>());
-        User user2Exists = new User(user2.getId(), user2.getEmail(), user2.getLogin(), user2.getName(), user2.getBirthday(), new HashSet<>());
-
+        FriendshipAck ack = userService.addFriend(user1.getId(), user2.getId());
 
-        User user1AfterAdd = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>(Set.of(user2Exists)));
-
-
-        when(mockUserStorage.getUserById(user1.getId()))
-                .thenReturn(Optional.of(user1BeforeAdd))
-                .thenReturn(Optional.of(user1AfterAdd));
-
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.of(user2Exists));
+        assertThat(ack).isEqualTo(new FriendshipAck(user1.getId(), user2.getId(), true));
+        verify(mockUserStorage, times(1)).addFriend(user1.getId(), user2.getId());
+        verify(mockUserStorage, never()).getUserById(anyInt());
+    }
 
-        doNothing().when(mockUserStorage).addFriend(user1.getId(), user2.getId());
+    @Test
+    @DisplayName("Add friend with full response returns the updated user")
+    void testAddFriendFullResponse() {
+        User user1AfterAdd = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), null, new HashSet<>(Set.of(user2)));
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, true, false));
+        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(user1AfterAdd));
 
         User updatedUser1 = userService.addFriends(user1.getId(), user2.getId());
 
-        assertThat(updatedUser1).isNotNull();
-        assertThat(updatedUser1.getId()).isEqualTo(user1.getId());
-        assertThat(updatedUser1.getFriends()).hasSize(1);
         assertThat(updatedUser1.getFriends()).extracting(User::getId).containsExactly(user2.getId());
-
-        verify(mockUserStorage, times(2)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
+        verify(mockUserStorage, times(1)).getUserById(user1.getId());
         verify(mockUserStorage, times(1)).addFriend(user1.getId(), user2.getId());
     }
 
     @Test
     @DisplayName("Add friend when user1 not found throws NotFoundException")
     void testAddFriendUser1NotFound() {
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.empty());
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(false, true, false));
 
-        assertThatThrownBy(() -> userService.addFriends(user1.getId(), user2.getId()))
+        assertThatThrownBy(() -> userService.addFriend(user1.getId(), user2.getId()))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + user1.getId() + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
-        verify(mockUserStorage, never()).getUserById(user2.getId());
         verify(mockUserStorage, never()).addFriend(anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("Add friend when user2 not found throws NotFoundException")
     void testAddFriendUser2NotFound() {
-        User user1Exists = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>());
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(user1Exists));
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.empty());
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, false, false));
 
-        assertThatThrownBy(() -> userService.addFriends(user1.getId(), user2.getId()))
+        assertThatThrownBy(() -> userService.addFriend(user1.getId(), user2.getId()))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + user2.getId() + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
         verify(mockUserStorage, never()).addFriend(anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("Add friend when they are already friends throws ValidationException")
     void testAddFriendAlreadyFriends() {
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, true, true));
 
-        User user1AlreadyFriends = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>(Set.of(user2)));
-        User user2Exists = new User(user2.getId(), user2.getEmail(), user2.getLogin(), user2.getName(), user2.getBirthday(), new HashSet<>());
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(user1AlreadyFriends));
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.of(user2Exists));
-
-        assertThatThrownBy(() -> userService.addFriends(user1.getId(), user2.getId()))
+        assertThatThrownBy(() -> userService.addFriend(user1.getId(), user2.getId()))
                 .isInstanceOf(ValidationException.class)
                 .hasMessageContaining("User " + user2.getId() + " is already added as a friend");
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
         verify(mockUserStorage, never()).addFriend(anyInt(), anyInt());
     }
 
-
     @Test
-    @DisplayName("Delete friend successfully")
+    @DisplayName("Delete friend returns a compact acknowledgement")
     void testDeleteFriendSuccessfully() {
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, true, true));
 
-        User user1BeforeDelete = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>(Set.of(user2)));
-        User user2Exists = new User(user2.getId(), user2.getEmail(), user2.getLogin(), user2.getName(), user2.getBirthday(), new HashSet<>());
-
-
-        User user1AfterDelete = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>());
-
-        when(mockUserStorage.getUserById(user1.getId()))
-                .thenReturn(Optional.of(user1BeforeDelete))
-                .thenReturn(Optional.of(user1AfterDelete));
-
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.of(user2Exists));
+        FriendshipAck ack = userService.deleteFriend(user1.getId(), user2.getId());
 
-        doNothing().when(mockUserStorage).removeFriend(user1.getId(), user2.getId());
-
-        User updatedUser1 = userService.deleteFriends(user1.getId(), user2.getId());
-
-        assertThat(updatedUser1).isNotNull();
-        assertThat(updatedUser1.getId()).isEqualTo(user1.getId());
-        assertThat(updatedUser1.getFriends()).isEmpty();
-
-        verify(mockUserStorage, times(2)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
+        assertThat(ack).isEqualTo(new FriendshipAck(user1.getId(), user2.getId(), false));
         verify(mockUserStorage, times(1)).removeFriend(user1.getId(), user2.getId());
+        verify(mockUserStorage, never()).getUserById(anyInt());
     }
 
-
     @Test
     @DisplayName("Delete friend when they are not friends throws ContentNotException")
     void testDeleteFriendNotFriends() {
-        User user1NotFriends = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>());
-        User user2Exists = new User(user2.getId(), user2.getEmail(), user2.getLogin(), user2.getName(), user2.getBirthday(), new HashSet<>());
-
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(user1NotFriends));
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.of(user2Exists));
+        when(mockUserStorage.checkFriendship(user1.getId(), user2.getId()))
+                .thenReturn(new FriendshipCheck(true, true, false));
 
         assertThatThrownBy(() -> userService.deleteFriends(user1.getId(), user2.getId()))
                 .isInstanceOf(ContentNotException.class)
                 .hasMessageContaining("User with ID " + user2.getId() + " not found in friends list of user with ID " + user1.getId());
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
         verify(mockUserStorage, never()).removeFriend(anyInt(), anyInt());
     }
 
-
     @Test
-    @DisplayName("Get friends returns user object with empty friends list when no friends")
+    @DisplayName("Get friends returns empty list when user has no friends")
     void testGetFriendsReturnsUserWithEmptyFriends() {
-        User userWithoutFriends = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>());
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(userWithoutFriends));
+        when(mockUserStorage.existsById(user1.getId())).thenReturn(true);
+        when(mockFriendshipGraph.getFriendIds(user1.getId())).thenReturn(new int[0]);
 
         Collection<User> friendsCollection = userService.getFriends(user1.getId());
 
         assertThat(friendsCollection).isNotNull().isEmpty();
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
+        verify(mockUserStorage, times(1)).existsById(user1.getId());
+        verify(mockUserStorage, never()).getUserById(anyInt());
     }
 
     @Test
-    @DisplayName("Get friends returns user object with populated friends list when friends exist")
+    @DisplayName("Get friends hydrates friend ids from the friendship graph")
     void testGetFriendsReturnsUserWithFriends() {
-        User userWithFriends = new User(user1.getId(), user1.getEmail(), user1.getLogin(), user1.getName(), user1.getBirthday(), new HashSet<>(Set.of(user2, user3)));
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(userWithFriends));
+        when(mockUserStorage.existsById(user1.getId())).thenReturn(true);
+        when(mockFriendshipGraph.getFriendIds(user1.getId())).thenReturn(new int[]{user2.getId(), user3.getId()});
+        when(mockUserStorage.getUsersByIds(List.of(user2.getId(), user3.getId()))).thenReturn(List.of(user2, user3));
 
         Collection<User> friendsCollection = userService.getFriends(user1.getId());
 
         assertThat(friendsCollection).isNotNull().hasSize(2);
-        assertThat(friendsCollection).extracting(User::getId).containsExactlyInAnyOrder(user2.getId(), user3.getId());
+        assertThat(friendsCollection).extracting(User::getId).containsExactly(user2.getId(), user3.getId());
+        assertThat(friendsCollection).extracting(User::getLogin).containsExactly(user2.getLogin(), user3.getLogin());
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
+        verify(mockUserStorage, never()).getUserById(anyInt());
     }
 
 
@@ -286,33 +289,34 @@ class UserServiceTest {
     @DisplayName("Get friends of non-existent user throws NotFoundException")
     void testGetFriendsNonExistentUser() {
         int nonExistentId = 999;
-        when(mockUserStorage.getUserById(nonExistentId)).thenReturn(Optional.empty());
+        when(mockUserStorage.existsById(nonExistentId)).thenReturn(false);
 
         assertThatThrownBy(() -> userService.getFriends(nonExistentId))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + nonExistentId + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(nonExistentId);
+        verify(mockUserStorage, times(1)).existsById(nonExistentId);
+        verify(mockFriendshipGraph, never()).getFriendIds(anyInt());
     }
 
 
     @Test
     @DisplayName("Get common friends successfully")
     void testGetCommonFriends() {
-        Set<User> commonFriendsFromStorage = new HashSet<>(Set.of(user3));
-
-        when(mockUserStorage.getUserById(user1.getId())).thenReturn(Optional.of(user1));
-        when(mockUserStorage.getUserById(user2.getId())).thenReturn(Optional.of(user2));
-        when(mockUserStorage.getCommonFriends(user1.getId(), user2.getId())).thenReturn(commonFriendsFromStorage);
+        when(mockUserStorage.existsById(user1.getId())).thenReturn(true);
+        when(mockUserStorage.existsById(user2.getId())).thenReturn(true);
+        when(mockFriendshipGraph.getCommonFriendIds(user1.getId(), user2.getId())).thenReturn(new int[]{user3.getId()});
+        when(mockUserStorage.getUsersByIds(List.of(user3.getId()))).thenReturn(List.of(user3));
 
         Set<User> commonFriendsResult = userService.getCommonFriends(user1.getId(), user2.getId());
 
         assertThat(commonFriendsResult).isNotNull().hasSize(1);
         assertThat(commonFriendsResult).extracting(User::getId).containsExactly(user3.getId());
 
-        verify(mockUserStorage, times(1)).getUserById(user1.getId());
-        verify(mockUserStorage, times(1)).getUserById(user2.getId());
-        verify(mockUserStorage, times(1)).getCommonFriends(user1.getId(), user2.getId());
+        verify(mockUserStorage, times(1)).existsById(user1.getId());
+        verify(mockUserStorage, times(1)).existsById(user2.getId());
+        verify(mockFriendshipGraph, times(1)).getCommonFriendIds(user1.getId(), user2.getId());
+        verify(mockUserStorage, never()).getCommonFriends(anyInt(), anyInt());
     }
 
 
@@ -322,35 +326,34 @@ class UserServiceTest {
         int nonExistentId1 = 998;
         int user2Id = user2.getId();
 
-        when(mockUserStorage.getUserById(nonExistentId1)).thenReturn(Optional.empty());
+        when(mockUserStorage.existsById(nonExistentId1)).thenReturn(false);
 
 
         assertThatThrownBy(() -> userService.getCommonFriends(nonExistentId1, user2Id))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + nonExistentId1 + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(nonExistentId1);
-        verify(mockUserStorage, never()).getUserById(user2Id);
-        verify(mockUserStorage, never()).getCommonFriends(anyInt(), anyInt());
+        verify(mockUserStorage, times(1)).existsById(nonExistentId1);
+        verify(mockUserStorage, never()).existsById(user2Id);
+        verify(mockFriendshipGraph, never()).getCommonFriendIds(anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("Get common friends when second user does not exist throws NotFoundException")
     void testGetCommonFriendsWhenSecondUserDoesNotExist() {
-        User userA = new User(100, "a@e.com", "a", "A", LocalDate.now(), new HashSet<>());
-        int userAId = userA.getId();
+        int userAId = 100;
         int nonExistentIdB = 101;
 
-        when(mockUserStorage.getUserById(userAId)).thenReturn(Optional.of(userA));
-        when(mockUserStorage.getUserById(nonExistentIdB)).thenReturn(Optional.empty());
+        when(mockUserStorage.existsById(userAId)).thenReturn(true);
+        when(mockUserStorage.existsById(nonExistentIdB)).thenReturn(false);
 
         assertThatThrownBy(() -> userService.getCommonFriends(userAId, nonExistentIdB))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + nonExistentIdB + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(userAId);
-        verify(mockUserStorage, times(1)).getUserById(nonExistentIdB);
-        verify(mockUserStorage, never()).getCommonFriends(anyInt(), anyInt());
+        verify(mockUserStorage, times(1)).existsById(userAId);
+        verify(mockUserStorage, times(1)).existsById(nonExistentIdB);
+        verify(mockFriendshipGraph, never()).getCommonFriendIds(anyInt(), anyInt());
     }
 
     @Test
@@ -359,24 +362,24 @@ class UserServiceTest {
         int nonExistentIdC = 200;
         int nonExistentIdD = 201;
 
-        when(mockUserStorage.getUserById(nonExistentIdC)).thenReturn(Optional.empty());
+        when(mockUserStorage.existsById(nonExistentIdC)).thenReturn(false);
 
 
         assertThatThrownBy(() -> userService.getCommonFriends(nonExistentIdC, nonExistentIdD))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessageContaining("User with ID " + nonExistentIdC + " not found");
 
-        verify(mockUserStorage, times(1)).getUserById(nonExistentIdC);
-        verify(mockUserStorage, never()).getUserById(nonExistentIdD);
-        verify(mockUserStorage, never()).getCommonFriends(anyInt(), anyInt());
+        verify(mockUserStorage, times(1)).existsById(nonExistentIdC);
+        verify(mockUserStorage, never()).existsById(nonExistentIdD);
+        verify(mockFriendshipGraph, never()).getCommonFriendIds(anyInt(), anyInt());
     }
 
 
     @Test
     @DisplayName("Add user successfully")
     void testAddUserSuccessfully() {
-        User newUser = new User(0, "new@example.com", "new_user", "New User", LocalDate.of(2000, 1, 1), new HashSet<>());
-        User userAfterAdd = new User(10, newUser.getEmail(), newUser.getLogin(), newUser.getName(), newUser.getBirthday(), new HashSet<>());
+        User newUser = new User(0, "new@example.com", "new_user", "New User", LocalDate.of(2000, 1, 1), null, new HashSet<>());
+        User userAfterAdd = new User(10, newUser.getEmail(), newUser.getLogin(), newUser.getName(), newUser.getBirthday(), null, new HashSet<>());
 
         when(mockUserStorage.addUser(any(User.class))).thenReturn(userAfterAdd);
 
@@ -395,10 +398,9 @@ class UserServiceTest {
     @Test
     @DisplayName("Update user successfully")
     void testUpdateUserSuccessfully() {
-        User existingUser = new User(1, "old@example.com", "old_user", "Old User", LocalDate.of(1990, 1, 1), new HashSet<>());
-        User updatedUserData = new User(1, "updated@example.com", "updated_user", "Updated User", LocalDate.of(1991, 1, 1), new HashSet<>());
+        User existingUser = new User(1, "old@example.com", "old_user", "Old User", LocalDate.of(1990, 1, 1), null, new HashSet<>());
+        User updatedUserData = new User(1, "updated@example.com", "updated_user", "Updated User", LocalDate.of(1991, 1, 1), null, new HashSet<>());
 
-        when(mockUserStorage.getUserById(existingUser.getId())).thenReturn(Optional.of(existingUser));
         when(mockUserStorage.updateUser(any(User.class))).thenReturn(updatedUserData);
 
         User resultUser = userService.updateUser(updatedUserData);
@@ -410,7 +412,7 @@ class UserServiceTest {
         assertThat(resultUser.getName()).isEqualTo(updatedUserData.getName());
         assertThat(resultUser.getBirthday()).isEqualTo(updatedUserData.getBirthday());
 
-        verify(mockUserStorage, times(1)).getUserById(existingUser.getId());
+        verify(mockUserStorage, never()).getUserById(anyInt());
         verify(mockUserStorage, times(1)).updateUser(any(User.class));
     }
 
@@ -418,23 +420,23 @@ class UserServiceTest {
     @DisplayName("Update non-existent user throws NotFoundException")
     void testUpdateNonExistentUserThrowsNotFoundException() {
         int nonExistentUserId = 999;
-        User userToUpdate = new User(nonExistentUserId, "u@e.com", "u", "U", LocalDate.now(), new HashSet<>());
+        User userToUpdate = new User(nonExistentUserId, "u@e.com", "u", "U", LocalDate.now(), null, new HashSet<>());
 
-        when(mockUserStorage.getUserById(nonExistentUserId)).thenReturn(Optional.empty());
+        when(mockUserStorage.updateUser(userToUpdate))
+                .thenThrow(new NotFoundException("User not found"));
 
         assertThatThrownBy(() -> userService.updateUser(userToUpdate))
                 .isInstanceOf(NotFoundException.class)
-                .hasMessageContaining("User with ID " + nonExistentUserId + " not found");
+                .hasMessageContaining("User not found");
 
-        verify(mockUserStorage, times(1)).getUserById(nonExistentUserId);
-        verify(mockUserStorage, never()).updateUser(any(User.class));
+        verify(mockUserStorage, never()).getUserById(anyInt());
     }
 
     @Test
     @DisplayName("Get all users successfully")
     void testGetAllUsersSuccessfully() {
-        User userAWithFriends = new User(1, "a@e.com", "a", "A", LocalDate.now(), new HashSet<>(Set.of(user2)));
-        User userBWithoutFriends = new User(2, "b@e.com", "b", "B", LocalDate.now(), new HashSet<>());
+        User userAWithFriends = new User(1, "a@e.com", "a", "A", LocalDate.now(), null, new HashSet<>(Set.of(user2)));
+        User userBWithoutFriends = new User(2, "b@e.com", "b", "B", LocalDate.now(), null, new HashSet<>());
 
 
         List<User> usersFromStorage = List.of(userAWithFriends, userBWithoutFriends);
@@ -465,4 +467,12 @@ class UserServiceTest {
 
         verify(mockUserStorage, times(1)).getUsers();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Autocomplete rejects counts above the completions kept per prefix")
+    void testAutocompleteCountAboveLimit() {
+        assertThatThrownBy(() -> userService.autocompleteUsers("us", UserAutocompleteIndex.MAX_COMPLETIONS + 1))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining(String.valueOf(UserAutocompleteIndex.MAX_COMPLETIONS));
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.events.UserSavedEvent;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({UserUniquenessFilter.class})
+class UserUniquenessFilterTest {
+
+    private final UserUniquenessFilter uniquenessFilter;
+    private final JdbcTemplate jdbcTemplate;
+
+    private User saveUser(int n) {
+        User user = new User(0, "bloom" + n + "@example.com", "bloom" + n, "bloom" + n, LocalDate.of(1990, 1, 1),
+                null, new HashSet<>());
+        jdbcTemplate.update("INSERT INTO Users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+        return user;
+    }
+
+    @Test
+    @DisplayName("Saved users stay visible to concurrent lookups while the full filters are rebuilt")
+    void testGrowsWithoutLosingUsers() throws Exception {
+        uniquenessFilter.rebuild();
+        assertThat(uniquenessFilter.mightContainLogin("bloom0")).isFalse();
+
+        uniquenessFilter.onUserSaved(new UserSavedEvent(saveUser(0)));
+        AtomicBoolean saving = new AtomicBoolean(true);
+        try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> reader = readers.submit(() -> {
+                while (saving.get()) {
+                    assertThat(uniquenessFilter.mightContainLogin("bloom0")).isTrue();
+                }
+            });
+            for (int n = 1; n < 2500; n++) {
+                uniquenessFilter.onUserSaved(new UserSavedEvent(saveUser(n)));
+            }
+            saving.set(false);
+            reader.get();
+        }
+
+        for (int n = 0; n < 2500; n++) {
+            assertThat(uniquenessFilter.mightContainLogin("bloom" + n)).isTrue();
+            assertThat(uniquenessFilter.mightContainEmail("bloom" + n + "@example.com")).isTrue();
+        }
+    }
+}